@@ -0,0 +1,20 @@
+package com.veriff.sdk.reactnative;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses the color formats JS passes in a branding map.
+ */
+@State(Scope.Benchmark)
+public class ColorParserBenchmark {
+    @Param({"#1a2b3c", "1A2B3C", "#1a2b3c80"})
+    public String color;
+
+    @Benchmark
+    public int parse() {
+        return ColorParser.parse(color);
+    }
+}
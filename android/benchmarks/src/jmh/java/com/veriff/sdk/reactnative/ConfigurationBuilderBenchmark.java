@@ -0,0 +1,62 @@
+package com.veriff.sdk.reactnative;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.veriff.VeriffBranding;
+import com.veriff.VeriffConfiguration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Walks a fully populated branding map the way {@code launchVeriff} does on a configuration cache
+ * miss, with RN's in-memory {@link JavaOnlyMap} standing in for the bridge maps.
+ */
+@State(Scope.Benchmark)
+public class ConfigurationBuilderBenchmark {
+    private ConfigurationBuilder builder;
+    private ReadableMap configuration;
+    private ReadableMap brandConfig;
+
+    @Setup
+    public void setUp() {
+        builder = new ConfigurationBuilder(new ConfigurationBuilder.Images() {
+            @Override
+            public void toolbarIcon(String key, VeriffBranding.Builder branding, ReadableMap brandConfig) {
+                // resolving drawables needs a context, only the walk itself is measured
+            }
+
+            @Override
+            public int drawableId(String name) {
+                return 0;
+            }
+        });
+        brandConfig = JavaOnlyMap.of(
+            ConfigurationBuilder.KEY_THEME_COLOR, "#1a2b3c",
+            ConfigurationBuilder.KEY_LOGO, "veriff_logo",
+            ConfigurationBuilder.KEY_ANDROID_NOTIFICATION_ICON, "ic_notification",
+            ConfigurationBuilder.KEY_BACKGROUND_COLOR, "#ffffff",
+            ConfigurationBuilder.KEY_STATUS_BAR_COLOR, "#0f1a2b",
+            ConfigurationBuilder.KEY_PRIMARY_TEXT_COLOR, "#222222",
+            ConfigurationBuilder.KEY_SECONDARY_TEXT_COLOR, "#666666cc",
+            ConfigurationBuilder.KEY_PRIMARY_BUTTON_BACKGROUND_COLOR, "#1a2b3c",
+            ConfigurationBuilder.KEY_BUTTON_CORNER_RADIUS, 6.0);
+        configuration = JavaOnlyMap.of(
+            "sessionUrl", "https://magic.veriff.me/v/eyJhbGciOiJIUzI1NiJ9.eyJzZXNzaW9uX2lkIjoiMTIzIn0.c2ln",
+            ConfigurationBuilder.KEY_CUSTOM_INTRO_SCREEN, false,
+            ConfigurationBuilder.KEY_LOCALE, "et",
+            ConfigurationBuilder.KEY_BRANDING, brandConfig);
+    }
+
+    @Benchmark
+    public VeriffBranding buildBranding() {
+        return builder.buildBranding(brandConfig);
+    }
+
+    @Benchmark
+    public VeriffConfiguration buildConfiguration() {
+        return builder.build(configuration);
+    }
+}
@@ -0,0 +1,39 @@
+package com.veriff.sdk.reactnative;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableMap;
+import com.veriff.VeriffResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Maps a Veriff result to what the launch promise resolves with.
+ */
+@State(Scope.Benchmark)
+public class ResultCodesBenchmark {
+    @Param({"DONE", "CANCELED", "ERROR"})
+    public VeriffResult.Status status;
+
+    @Param({"NETWORK_ERROR", "UNKNOWN_ERROR"})
+    public VeriffResult.Error error;
+
+    @Benchmark
+    public String codeToError() {
+        return ResultCodes.codeToError(error);
+    }
+
+    @Benchmark
+    public String statusToString() {
+        return ResultCodes.statusToString(status);
+    }
+
+    @Benchmark
+    public WritableMap writeResult() {
+        WritableMap result = new JavaOnlyMap();
+        ResultCodes.writeResult(result, "eyJhbGciOiJIUzI1NiJ9", status, ResultCodes.codeToError(error));
+        return result;
+    }
+}
@@ -0,0 +1,155 @@
+package com.veriff.sdk.reactnative;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.common.references.CloseableReference;
+
+/**
+ * Process-wide LRU cache of decoded branding bitmaps, shared by every
+ * {@link ReactNativeImageProvider} so repeat launches (and providers recreated from a parcel)
+ * don't fetch and decode the same image again.
+ * <p>
+ * Entries are bitmap references; callers always get their own clone, so evicting an entry never
+ * invalidates a bitmap that's still on screen.
+ */
+final class BrandingImageCache {
+    /**
+     * Never use more than this many bytes, regardless of how much heap the app has.
+     */
+    private static final int MAX_BUDGET_BYTES = 8 * 1024 * 1024;
+
+    private static final BrandingImageCache INSTANCE = new BrandingImageCache(defaultBudgetBytes());
+
+    private final LruCache<Key, CloseableReference<Bitmap>> cache;
+
+    private BrandingImageCache(int budgetBytes) {
+        cache = new LruCache<Key, CloseableReference<Bitmap>>(budgetBytes) {
+            @Override
+            protected int sizeOf(Key key, CloseableReference<Bitmap> value) {
+                return value.get().getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, CloseableReference<Bitmap> oldValue, CloseableReference<Bitmap> newValue) {
+                if (oldValue != newValue) {
+                    oldValue.close();
+                }
+            }
+        };
+    }
+
+    static BrandingImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static int defaultBudgetBytes() {
+        long heapBudget = Runtime.getRuntime().maxMemory() / 32;
+        return (int) Math.min(heapBudget, MAX_BUDGET_BYTES);
+    }
+
+    /**
+     * Returns a new reference to the cached bitmap, which the caller has to close, or {@code null}
+     * on a miss.
+     */
+    @Nullable
+    synchronized CloseableReference<Bitmap> get(@NonNull Key key) {
+        CloseableReference<Bitmap> reference = cache.get(key);
+        return reference != null ? reference.clone() : null;
+    }
+
+    /**
+     * Stores a clone of {@code reference}, the caller keeps ownership of the one passed in.
+     */
+    synchronized void put(@NonNull Key key, @NonNull CloseableReference<Bitmap> reference) {
+        cache.put(key, reference.clone());
+    }
+
+    synchronized void evictAll() {
+        cache.evictAll();
+    }
+
+    /**
+     * Evicts least recently used bitmaps until at most {@code maxBytes} are cached, returns how many
+     * bytes the cache dropped. Evicted bitmaps are only freed once no one else holds a reference.
+     */
+    synchronized int trimToSize(int maxBytes) {
+        int before = cache.size();
+        if (maxBytes <= 0) {
+            cache.evictAll();
+        } else {
+            cache.trimToSize(maxBytes);
+        }
+        return before - cache.size();
+    }
+
+    synchronized int sizeBytes() {
+        return cache.size();
+    }
+
+    synchronized int maxSizeBytes() {
+        return cache.maxSize();
+    }
+
+    synchronized int hitCount() {
+        return cache.hitCount();
+    }
+
+    synchronized int missCount() {
+        return cache.missCount();
+    }
+
+    synchronized int evictionCount() {
+        return cache.evictionCount();
+    }
+
+    static final class Key {
+        private final String url;
+        private final int width;
+        private final int height;
+        private final float density;
+        private final Bitmap.Config config;
+
+        Key(@NonNull String url, @NonNull ImageLoadOptions options) {
+            this.url = url;
+            this.width = options.targetWidthPx;
+            this.height = options.targetHeightPx;
+            this.density = options.density;
+            this.config = options.bitmapConfig;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return width == other.width
+                && height == other.height
+                && Float.compare(density, other.density) == 0
+                && config == other.config
+                && url.equals(other.url);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = url.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(density);
+            result = 31 * result + config.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return url + "@" + width + "x" + height + "@" + density + "x/" + config;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.veriff.sdk.reactnative;
+
+/**
+ * Parses {@code RRGGBB} / {@code RRGGBBAA} hex colors, with or without a leading {@code #}, into
+ * ARGB ints without allocating.
+ */
+final class ColorParser {
+    private ColorParser() {
+    }
+
+    /**
+     * Returns the color as an ARGB int, {@code 0} for {@code null}. Colors with more than six digits
+     * carry their alpha in the last two.
+     *
+     * @throws NumberFormatException if the string isn't a hex number
+     */
+    static int parse(String hexcolor) {
+        if (hexcolor == null) {
+            return 0;
+        }
+        int start = hexcolor.startsWith("#") ? 1 : 0;
+        int length = hexcolor.length() - start;
+        if (length <= 0 || length > 16) {
+            throw new NumberFormatException("Invalid color: " + hexcolor);
+        }
+
+        long color = 0;
+        for (int i = start; i < hexcolor.length(); i++) {
+            int digit = Character.digit(hexcolor.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid color: " + hexcolor);
+            }
+            color = (color << 4) | digit;
+        }
+
+        int a = 255;
+        if (length > 6) {
+            a = ((int) color) & 0xff;
+            color = color >>> 8;
+        }
+        int r = ((int) (color >>> 16)) & 0xff;
+        int g = ((int) (color >>> 8)) & 0xff;
+        int b = ((int) color) & 0xff;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
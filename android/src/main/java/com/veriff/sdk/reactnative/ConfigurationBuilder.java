@@ -0,0 +1,111 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.veriff.VeriffBranding;
+import com.veriff.VeriffConfiguration;
+
+import java.util.Locale;
+
+/**
+ * Turns the configuration map passed from JS into a {@link VeriffConfiguration}.
+ * <p>
+ * Images and drawables need a context, they are resolved through an {@link Images}.
+ */
+final class ConfigurationBuilder {
+    static final String KEY_BRANDING = "branding";
+    static final String KEY_LOCALE = "locale";
+    static final String KEY_CUSTOM_INTRO_SCREEN = "customIntroScreen";
+
+    static final String KEY_THEME_COLOR = "themeColor";
+    static final String KEY_LOGO = "logo";
+    static final String KEY_NAVIGATION_BAR_IMAGE = "navigationBarImage";
+    static final String KEY_ANDROID_NOTIFICATION_ICON = "androidNotificationIcon";
+    static final String KEY_BACKGROUND_COLOR = "backgroundColor";
+    static final String KEY_STATUS_BAR_COLOR = "statusBarColor";
+    static final String KEY_PRIMARY_TEXT_COLOR = "primaryTextColor";
+    static final String KEY_SECONDARY_TEXT_COLOR = "secondaryTextColor";
+    static final String KEY_PRIMARY_BUTTON_BACKGROUND_COLOR = "primaryButtonBackgroundColor";
+    static final String KEY_BUTTON_CORNER_RADIUS = "buttonCornerRadius";
+
+    /**
+     * Resolves the image and drawable values of a branding map.
+     */
+    interface Images {
+        /**
+         * Sets the toolbar icon of {@code branding} from the image under {@code key}, either a
+         * drawable name or an RN image map.
+         */
+        void toolbarIcon(@NonNull String key, @NonNull VeriffBranding.Builder branding, @NonNull ReadableMap brandConfig);
+
+        /**
+         * Returns the resource id of the drawable called {@code name}.
+         */
+        int drawableId(String name);
+    }
+
+    private final Images images;
+
+    ConfigurationBuilder(@NonNull Images images) {
+        this.images = images;
+    }
+
+    @NonNull
+    VeriffConfiguration build(@NonNull ReadableMap configuration) {
+        VeriffConfiguration.Builder configBuilder = new VeriffConfiguration.Builder();
+
+        if (configuration.hasKey(KEY_CUSTOM_INTRO_SCREEN)) {
+            configBuilder.customIntroScreen(configuration.getBoolean(KEY_CUSTOM_INTRO_SCREEN));
+        }
+
+        if (configuration.hasKey(KEY_BRANDING)) {
+            ReadableMap brandConfig = configuration.getMap(KEY_BRANDING);
+            if (brandConfig != null) {
+                configBuilder.branding(buildBranding(brandConfig));
+            }
+        }
+
+        if (configuration.hasKey(KEY_LOCALE)) {
+            configBuilder.locale(Locale.forLanguageTag(configuration.getString(KEY_LOCALE)));
+        }
+
+        return configBuilder.build();
+    }
+
+    @NonNull
+    VeriffBranding buildBranding(@NonNull ReadableMap brandConfig) {
+        VeriffBranding.Builder branding = new VeriffBranding.Builder();
+        if (brandConfig.hasKey(KEY_THEME_COLOR)) {
+            branding.themeColor(ColorParser.parse(brandConfig.getString(KEY_THEME_COLOR)));
+        }
+        if (brandConfig.hasKey(KEY_NAVIGATION_BAR_IMAGE)) {
+            images.toolbarIcon(KEY_NAVIGATION_BAR_IMAGE, branding, brandConfig);
+        }
+        if (brandConfig.hasKey(KEY_LOGO)) {
+            images.toolbarIcon(KEY_LOGO, branding, brandConfig);
+        }
+        if (brandConfig.hasKey(KEY_ANDROID_NOTIFICATION_ICON)) {
+            branding.notificationIcon(images.drawableId(brandConfig.getString(KEY_ANDROID_NOTIFICATION_ICON)));
+        }
+        if (brandConfig.hasKey(KEY_BACKGROUND_COLOR)) {
+            branding.backgroundColor(ColorParser.parse(brandConfig.getString(KEY_BACKGROUND_COLOR)));
+        }
+        if (brandConfig.hasKey(KEY_STATUS_BAR_COLOR)) {
+            branding.statusBarColor(ColorParser.parse(brandConfig.getString(KEY_STATUS_BAR_COLOR)));
+        }
+        if (brandConfig.hasKey(KEY_PRIMARY_TEXT_COLOR)) {
+            branding.primaryTextColor(ColorParser.parse(brandConfig.getString(KEY_PRIMARY_TEXT_COLOR)));
+        }
+        if (brandConfig.hasKey(KEY_SECONDARY_TEXT_COLOR)) {
+            branding.secondaryTextColor(ColorParser.parse(brandConfig.getString(KEY_SECONDARY_TEXT_COLOR)));
+        }
+        if (brandConfig.hasKey(KEY_PRIMARY_BUTTON_BACKGROUND_COLOR)) {
+            branding.primaryButtonBackgroundColor(ColorParser.parse(brandConfig.getString(KEY_PRIMARY_BUTTON_BACKGROUND_COLOR)));
+        }
+        if (brandConfig.hasKey(KEY_BUTTON_CORNER_RADIUS)) {
+            branding.buttonCornerRadius((float)brandConfig.getDouble(KEY_BUTTON_CORNER_RADIUS));
+        }
+        return branding.build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.veriff.sdk.reactnative;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.veriff.VeriffConfiguration;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers {@link VeriffConfiguration}s built from JS configuration maps, so launches with the
+ * same branding and options skip parsing and building them again.
+ * <p>
+ * Compiled configurations are looked up by a hash of the content of the map they were built from,
+ * computed by walking the map in place rather than copying it, or by a name registered from JS.
+ */
+final class ConfigurationCache {
+    private static final int MAX_ENTRIES = 8;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final LruCache<Long, VeriffConfiguration> byContent = new LruCache<>(MAX_ENTRIES);
+
+    private final Map<String, VeriffConfiguration> byName = new ConcurrentHashMap<>();
+
+    /**
+     * @param contentKey the configuration's {@link #contentKey(ReadableMap, Set)}
+     */
+    @Nullable
+    VeriffConfiguration get(long contentKey) {
+        return byContent.get(contentKey);
+    }
+
+    void put(long contentKey, @NonNull VeriffConfiguration configuration) {
+        byContent.put(contentKey, configuration);
+    }
+
+    /**
+     * Returns a 64 bit hash of everything in {@code configuration} but the top level
+     * {@code skippedKeys}. Entries of a map are combined regardless of their order, array elements
+     * in order.
+     */
+    static long contentKey(@NonNull ReadableMap configuration, @NonNull Set<String> skippedKeys) {
+        return hashMap(configuration, skippedKeys);
+    }
+
+    private static long hashMap(ReadableMap map, @Nullable Set<String> skippedKeys) {
+        long hash = 0;
+        ReadableMapKeySetIterator keys = map.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            if (skippedKeys != null && skippedKeys.contains(key)) {
+                continue;
+            }
+            long value;
+            switch (map.getType(key)) {
+                case Boolean:
+                    value = map.getBoolean(key) ? 1 : 2;
+                    break;
+                case Number:
+                    value = Double.doubleToLongBits(map.getDouble(key));
+                    break;
+                case String:
+                    value = hashString(map.getString(key));
+                    break;
+                case Map:
+                    value = hashMap(map.getMap(key), null);
+                    break;
+                case Array:
+                    value = hashArray(map.getArray(key));
+                    break;
+                default:
+                    value = 0;
+                    break;
+            }
+            hash += mix(hashString(key) * FNV_PRIME + mix(value + map.getType(key).ordinal()));
+        }
+        return mix(hash);
+    }
+
+    private static long hashArray(ReadableArray array) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < array.size(); i++) {
+            long value;
+            switch (array.getType(i)) {
+                case Boolean:
+                    value = array.getBoolean(i) ? 1 : 2;
+                    break;
+                case Number:
+                    value = Double.doubleToLongBits(array.getDouble(i));
+                    break;
+                case String:
+                    value = hashString(array.getString(i));
+                    break;
+                case Map:
+                    value = hashMap(array.getMap(i), null);
+                    break;
+                case Array:
+                    value = hashArray(array.getArray(i));
+                    break;
+                default:
+                    value = 0;
+                    break;
+            }
+            hash = (hash ^ mix(value + array.getType(i).ordinal())) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long hashString(@Nullable String value) {
+        if (value == null) {
+            return 0;
+        }
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * The SplitMix64 finalizer, spreads every input bit over the whole hash.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    @Nullable
+    VeriffConfiguration getNamed(@NonNull String name) {
+        return byName.get(name);
+    }
+
+    void putNamed(@NonNull String name, @NonNull VeriffConfiguration configuration) {
+        byName.put(name, configuration);
+    }
+
+    /**
+     * Forgets the configurations cached by content, named ones stay registered. Returns how many
+     * were dropped.
+     */
+    int clear() {
+        int dropped = byContent.size();
+        byContent.evictAll();
+        return dropped;
+    }
+}
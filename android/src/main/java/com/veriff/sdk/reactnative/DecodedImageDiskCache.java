@@ -0,0 +1,259 @@
+package com.veriff.sdk.reactnative;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.facebook.common.references.CloseableReference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps already decoded branding bitmaps as raw pixel files in the app's cache directory, so a
+ * provider restored after process death can memory-map its image instead of downloading and
+ * decoding it again.
+ * <p>
+ * Files are never trusted for longer than their TTL and the directory is trimmed, oldest first,
+ * to {@link #MAX_SIZE_BYTES}. The Fresco pipeline doesn't expose response headers, so entries are
+ * validated by age only.
+ */
+final class DecodedImageDiskCache {
+    private static final String TAG = "DecodedImageDiskCache";
+
+    static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    private static final long MAX_SIZE_BYTES = 16 * 1024 * 1024;
+
+    private static final String DIRECTORY = "veriff-branding-images";
+    private static final String SUFFIX = ".px";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x56524650; // "VRFP"
+    private static final int VERSION = 1;
+    // magic, version, width, height, config, pixel byte count, stored at
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 4 + 4 + 8;
+
+    private static final int CONFIG_ARGB_8888 = 0;
+    private static final int CONFIG_RGB_565 = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private DecodedImageDiskCache() {
+    }
+
+    /**
+     * Returns a bitmap read from the memory-mapped cache file for {@code key}, or {@code null} if
+     * there is no usable entry younger than {@code ttlMs}.
+     */
+    @Nullable
+    @WorkerThread
+    static Bitmap read(@NonNull Context context, @NonNull BrandingImageCache.Key key, long ttlMs) {
+        return read(entryFile(context, key), key, ttlMs);
+    }
+
+    /**
+     * Returns a bitmap read from the memory-mapped cache {@code file} of {@code key}, see
+     * {@link #entryFile(Context, BrandingImageCache.Key)}, or {@code null} if it isn't a usable entry
+     * younger than {@code ttlMs}.
+     */
+    @Nullable
+    @WorkerThread
+    static Bitmap read(@NonNull File file, @NonNull BrandingImageCache.Key key, long ttlMs) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Truncated header");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unknown file format");
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            Bitmap.Config config = decodeConfig(buffer.getInt());
+            int byteCount = buffer.getInt();
+            long storedAt = buffer.getLong();
+            if (System.currentTimeMillis() - storedAt > ttlMs) {
+                VeriffLog.d(TAG, "Cached image for {} expired", key);
+                delete(file);
+                return null;
+            }
+            if (config == null || width <= 0 || height <= 0 || size - HEADER_SIZE != byteCount) {
+                throw new IOException("Corrupt header");
+            }
+
+            Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+            if (bitmap.getByteCount() != byteCount) {
+                bitmap.recycle();
+                throw new IOException("Pixel data doesn't match " + width + "x" + height + " " + config);
+            }
+            bitmap.copyPixelsFromBuffer(buffer);
+            // keeps recently used files from being trimmed first
+            file.setLastModified(System.currentTimeMillis());
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            VeriffLog.w(TAG, "Dropping unreadable cached image for {}", key, e);
+            delete(file);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the bitmap to disk in the background, holding its own reference until it's done.
+     */
+    static void writeAsync(@NonNull Context context, @NonNull BrandingImageCache.Key key,
+                           @NonNull CloseableReference<Bitmap> bitmapReference) {
+        Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        CloseableReference<Bitmap> reference = bitmapReference.clone();
+        DiskExecutor.INSTANCE.execute(() -> {
+            try {
+                write(appContext, key, reference.get());
+            } finally {
+                reference.close();
+            }
+        });
+    }
+
+    @WorkerThread
+    private static void write(Context context, BrandingImageCache.Key key, Bitmap bitmap) {
+        int config = encodeConfig(bitmap.getConfig());
+        if (config < 0) {
+            // hardware and other exotic bitmaps can't be copied out cheaply
+            return;
+        }
+        File file = fileFor(context, key);
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        int byteCount = bitmap.getByteCount();
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(HEADER_SIZE + (long) byteCount);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) byteCount);
+            buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(bitmap.getWidth())
+                .putInt(bitmap.getHeight())
+                .putInt(config)
+                .putInt(byteCount)
+                .putLong(System.currentTimeMillis());
+            bitmap.copyPixelsToBuffer(buffer);
+            buffer.force();
+        } catch (IOException | RuntimeException e) {
+            VeriffLog.w(TAG, "Writing cached image for {} failed", key, e);
+            delete(temp);
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            VeriffLog.w(TAG, "Could not move cached image for {} in place", key);
+            delete(temp);
+            return;
+        }
+        trim(file.getParentFile());
+    }
+
+    /**
+     * Deletes the oldest files until the directory fits into {@link #MAX_SIZE_BYTES}.
+     */
+    private static void trim(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_SIZE_BYTES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= MAX_SIZE_BYTES) {
+                break;
+            }
+            total -= file.length();
+            delete(file);
+        }
+    }
+
+    /**
+     * Returns the file the entry for {@code key} is kept in, whether or not it has been written yet.
+     */
+    @NonNull
+    static File entryFile(@NonNull Context context, @NonNull BrandingImageCache.Key key) {
+        return new File(new File(context.getCacheDir(), DIRECTORY), sha1(key.toString()) + SUFFIX);
+    }
+
+    private static File fileFor(Context context, BrandingImageCache.Key key) {
+        File file = entryFile(context, key);
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            VeriffLog.w(TAG, "Could not create {}", directory);
+        }
+        return file;
+    }
+
+    private static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Android version ships SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int encodeConfig(@Nullable Bitmap.Config config) {
+        if (config == Bitmap.Config.ARGB_8888) {
+            return CONFIG_ARGB_8888;
+        } else if (config == Bitmap.Config.RGB_565) {
+            return CONFIG_RGB_565;
+        }
+        return -1;
+    }
+
+    @Nullable
+    private static Bitmap.Config decodeConfig(int config) {
+        switch (config) {
+            case CONFIG_ARGB_8888:
+                return Bitmap.Config.ARGB_8888;
+            case CONFIG_RGB_565:
+                return Bitmap.Config.RGB_565;
+            default:
+                return null;
+        }
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            VeriffLog.w(TAG, "Could not delete {}", file);
+        }
+    }
+
+    private static final class DiskExecutor {
+        private static final ExecutorService INSTANCE =
+            Executors.newSingleThreadExecutor(new NamedThreadFactory("veriff-image-disk"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.veriff.sdk.reactnative;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves drawable names passed from JS to resource ids.
+ * <p>
+ * Resource ids are only assigned when the host app is linked, so they can't be baked into the
+ * library. Each name is looked up with {@code Resources#getIdentifier} the first time it is needed
+ * and memoized, so later launches with the same branding don't go through the reflection again.
+ */
+final class DrawableResolver {
+    private static final String TYPE_DRAWABLE = "drawable";
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private DrawableResolver() {
+    }
+
+    /**
+     * Returns the id of the drawable called {@code name} in the app's package, {@code 0} if there's
+     * no such drawable.
+     */
+    static int getDrawableId(@NonNull Context context, String name) {
+        if (TextUtils.isEmpty(name)) {
+            return 0;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = context.getResources().getIdentifier(name, TYPE_DRAWABLE, context.getPackageName());
+            ids.put(name, id);
+        }
+        return id;
+    }
+}
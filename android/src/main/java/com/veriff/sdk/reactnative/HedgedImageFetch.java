@@ -0,0 +1,127 @@
+package com.veriff.sdk.reactnative;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.common.references.CloseableReference;
+import com.facebook.imagepipeline.bitmaps.SimpleBitmapReleaser;
+import com.facebook.react.modules.network.OkHttpClientProvider;
+
+import java.io.IOException;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * The second request of a hedged image fetch. It goes straight to OkHttp instead of through Fresco,
+ * which would only join the request already in flight for the same url.
+ */
+final class HedgedImageFetch {
+    /**
+     * Larger responses fail the request instead of being read into memory, no branding image comes
+     * close. Also applies to SVGs fetched by {@link VectorImageRenderer}.
+     */
+    static final long MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    private HedgedImageFetch() {
+    }
+
+    /**
+     * Whether a hedged request can help for {@code url}, it can't for local files.
+     */
+    static boolean canHedge(@NonNull String url) {
+        return url.startsWith("https://") || url.startsWith("http://");
+    }
+
+    /**
+     * Starts fetching and decoding {@code url} into {@code race}, returns the call to cancel once the
+     * race is over or {@code null} if the race is already settled.
+     */
+    @Nullable
+    static Call start(@NonNull String url, @NonNull ImageLoadOptions options, @NonNull ImageLoadRace race) {
+        if (!race.start()) {
+            return null;
+        }
+        Call call = OkHttpClientProvider.getOkHttpClient().newCall(request(url, options));
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                race.fail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        race.fail(new IOException("Hedged image request got HTTP " + response.code()));
+                        return;
+                    }
+                    Bitmap bitmap = decode(readBody(body), options);
+                    if (bitmap == null) {
+                        race.fail(new IOException("Hedged image request got an undecodable image"));
+                        return;
+                    }
+                    CloseableReference<Bitmap> reference = CloseableReference.of(bitmap, SimpleBitmapReleaser.getInstance());
+                    if (!race.win(reference, true)) {
+                        reference.close();
+                    }
+                } catch (IOException e) {
+                    race.fail(e);
+                } catch (RuntimeException | OutOfMemoryError e) {
+                    // a broken or huge image must fail this attempt, not OkHttp's dispatcher thread
+                    race.fail(new IOException("Hedged image request could not decode the image", e));
+                }
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Returns the request for {@code url} with the headers of {@code options}.
+     */
+    @NonNull
+    static Request request(@NonNull String url, @NonNull ImageLoadOptions options) {
+        Request.Builder request = new Request.Builder().url(url);
+        for (Map.Entry<String, String> header : options.headers.entrySet()) {
+            request.addHeader(header.getKey(), header.getValue());
+        }
+        return request.build();
+    }
+
+    /**
+     * Reads the whole body, failing if it is larger than {@link #MAX_BODY_BYTES}.
+     */
+    @NonNull
+    static byte[] readBody(@NonNull ResponseBody body) throws IOException {
+        if (body.contentLength() > MAX_BODY_BYTES) {
+            throw new IOException("Image request got " + body.contentLength() + " bytes, more than " + MAX_BODY_BYTES);
+        }
+        // the content length may be missing or wrong, only trust what was actually read
+        BufferedSource source = body.source();
+        if (source.request(MAX_BODY_BYTES + 1)) {
+            throw new IOException("Image request got more than " + MAX_BODY_BYTES + " bytes");
+        }
+        return source.readByteArray();
+    }
+
+    @Nullable
+    private static Bitmap decode(byte[] data, ImageLoadOptions options) {
+        BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+        if (options.hasTargetSize()) {
+            decodeOptions.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(data, 0, data.length, decodeOptions);
+            decodeOptions.inSampleSize = options.sampleSize(decodeOptions.outWidth, decodeOptions.outHeight);
+            decodeOptions.inJustDecodeBounds = false;
+        }
+        decodeOptions.inPreferredConfig = options.bitmapConfig;
+        return BitmapFactory.decodeByteArray(data, 0, data.length, decodeOptions);
+    }
+}
@@ -0,0 +1,111 @@
+package com.veriff.sdk.reactnative;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide counters for {@link ReactNativeImageProvider} loads. How long loads take goes into
+ * the {@link LaunchTimeline#STAGE_IMAGE_LOAD} histogram.
+ */
+final class ImageLoadMetrics {
+    enum Outcome {
+        SUCCESS,
+        FAILURE,
+        TIMEOUT,
+        INTERRUPTED
+    }
+
+    private static final AtomicLong loads = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static final AtomicLong decodedBytes = new AtomicLong();
+    private static final AtomicLong savedBytes = new AtomicLong();
+    private static final AtomicLong retries = new AtomicLong();
+    private static final AtomicLong hedges = new AtomicLong();
+    private static final AtomicLong hedgeWins = new AtomicLong();
+    private static final AtomicLong fallbacks = new AtomicLong();
+    private static final AtomicLong vectorRenders = new AtomicLong();
+
+    private ImageLoadMetrics() {
+    }
+
+    static void record(Outcome outcome, long elapsedNanos) {
+        LaunchTimeline.record(null, LaunchTimeline.STAGE_IMAGE_LOAD, LaunchTimeline.now() - elapsedNanos, elapsedNanos);
+        loads.incrementAndGet();
+        if (outcome == Outcome.TIMEOUT) {
+            timeouts.incrementAndGet();
+        } else if (outcome != Outcome.SUCCESS) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the size of a decoded bitmap and how many of those bytes scaling it down to the target
+     * size saved.
+     */
+    static void recordBytesSaved(int decoded, int saved) {
+        decodedBytes.addAndGet(decoded);
+        savedBytes.addAndGet(saved);
+    }
+
+    static void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    /**
+     * Records a hedged request, and whether it delivered before the one it raced.
+     */
+    static void recordHedge(boolean won) {
+        hedges.incrementAndGet();
+        if (won) {
+            hedgeWins.incrementAndGet();
+        }
+    }
+
+    static void recordFallback() {
+        fallbacks.incrementAndGet();
+    }
+
+    static void recordVectorRender() {
+        vectorRenders.incrementAndGet();
+    }
+
+    static long retryCount() {
+        return retries.get();
+    }
+
+    static long hedgeCount() {
+        return hedges.get();
+    }
+
+    static long hedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    static long fallbackCount() {
+        return fallbacks.get();
+    }
+
+    static long vectorRenderCount() {
+        return vectorRenders.get();
+    }
+
+    static long decodedBytes() {
+        return decodedBytes.get();
+    }
+
+    static long savedBytes() {
+        return savedBytes.get();
+    }
+
+    static long loadCount() {
+        return loads.get();
+    }
+
+    static long failureCount() {
+        return failures.get();
+    }
+
+    static long timeoutCount() {
+        return timeouts.get();
+    }
+}
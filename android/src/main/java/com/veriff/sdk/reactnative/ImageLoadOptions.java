@@ -0,0 +1,256 @@
+package com.veriff.sdk.reactnative;
+
+import android.graphics.Bitmap;
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.imagepipeline.common.ResizeOptions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * How a {@link ReactNativeImageProvider} should fetch and decode its image.
+ */
+final class ImageLoadOptions {
+    static final int DEFAULT_MAX_RETRIES = 2;
+
+    static final long DEFAULT_RETRY_BACKOFF_MS = 200;
+
+    /**
+     * No single backoff waits longer than this, however many retries there are.
+     */
+    private static final long MAX_RETRY_BACKOFF_MS = 5_000;
+
+    static final ImageLoadOptions DEFAULT = new ImageLoadOptions(
+        ReactNativeImageProvider.DEFAULT_LOAD_TIMEOUT_MS, 0, 0, 0f, Bitmap.Config.ARGB_8888,
+        DecodedImageDiskCache.DEFAULT_TTL_MS, DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF_MS, 0, null, null);
+
+    /**
+     * Deadline for the whole load, retries and hedged requests included.
+     */
+    final long loadTimeoutMs;
+
+    /**
+     * Target width in pixels, 0 if the image should keep its natural width.
+     */
+    final int targetWidthPx;
+
+    /**
+     * Target height in pixels, 0 if the image should keep its natural height.
+     */
+    final int targetHeightPx;
+
+    /**
+     * Screen density vector images are rendered for, 0 for the density of the display.
+     */
+    final float density;
+
+    @NonNull
+    final Bitmap.Config bitmapConfig;
+
+    /**
+     * How long a decoded copy of the image on disk may be used instead of fetching it again.
+     */
+    final long diskCacheTtlMs;
+
+    /**
+     * How many times a failed fetch is tried again, as long as the deadline allows.
+     */
+    final int maxRetries;
+
+    /**
+     * The backoff before the first retry, doubled for every further one.
+     */
+    final long retryBackoffMs;
+
+    /**
+     * A second request is raced against a fetch that takes longer than this percentile (0-100) of
+     * past image loads, 0 if fetches are never hedged.
+     */
+    final double hedgePercentile;
+
+    /**
+     * Name of a bundled drawable shown instead of the image if it can't be loaded before the
+     * deadline, {@code null} if the load should fail instead.
+     */
+    @Nullable
+    final String fallbackDrawable;
+
+    /**
+     * Headers sent with every request for the image, like the {@code headers} of a React Native
+     * image source.
+     */
+    @NonNull
+    final Map<String, String> headers;
+
+    ImageLoadOptions(long loadTimeoutMs, int targetWidthPx, int targetHeightPx, float density,
+                     @Nullable Bitmap.Config bitmapConfig, long diskCacheTtlMs, int maxRetries, long retryBackoffMs, double hedgePercentile,
+                     @Nullable String fallbackDrawable, @Nullable Map<String, String> headers) {
+        this.loadTimeoutMs = loadTimeoutMs > 0 ? loadTimeoutMs : ReactNativeImageProvider.DEFAULT_LOAD_TIMEOUT_MS;
+        this.targetWidthPx = Math.max(0, targetWidthPx);
+        this.targetHeightPx = Math.max(0, targetHeightPx);
+        this.density = Math.max(0f, density);
+        this.bitmapConfig = bitmapConfig != null ? bitmapConfig : Bitmap.Config.ARGB_8888;
+        this.diskCacheTtlMs = Math.max(0, diskCacheTtlMs);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+        this.hedgePercentile = hedgePercentile > 0 && hedgePercentile < 100 ? hedgePercentile : 0;
+        this.fallbackDrawable = fallbackDrawable != null && !fallbackDrawable.isEmpty() ? fallbackDrawable : null;
+        this.headers = headers != null && !headers.isEmpty()
+            ? Collections.unmodifiableMap(new LinkedHashMap<>(headers))
+            : Collections.<String, String>emptyMap();
+    }
+
+    /**
+     * Builds options from a size given in density independent pixels.
+     */
+    static ImageLoadOptions fromDp(long loadTimeoutMs, double widthDp, double heightDp, float density,
+                                   @Nullable Bitmap.Config bitmapConfig, long diskCacheTtlMs, int maxRetries,
+                                   long retryBackoffMs, double hedgePercentile, @Nullable String fallbackDrawable,
+                                   @Nullable Map<String, String> headers) {
+        return new ImageLoadOptions(loadTimeoutMs,
+            (int) Math.ceil(widthDp * density), (int) Math.ceil(heightDp * density), density, bitmapConfig, diskCacheTtlMs,
+            maxRetries, retryBackoffMs, hedgePercentile, fallbackDrawable, headers);
+    }
+
+    /**
+     * Parses a bitmap config name as passed from JS, unknown names result in {@code null}.
+     */
+    @Nullable
+    static Bitmap.Config parseBitmapConfig(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name) {
+            case "RGB_565":
+                return Bitmap.Config.RGB_565;
+            case "ARGB_8888":
+                return Bitmap.Config.ARGB_8888;
+            default:
+                return null;
+        }
+    }
+
+    boolean hasTargetSize() {
+        return targetWidthPx > 0 || targetHeightPx > 0;
+    }
+
+    @Nullable
+    ResizeOptions resizeOptions() {
+        if (!hasTargetSize()) {
+            return null;
+        }
+        // Fresco needs both dimensions, a missing one means "same as the other"
+        int width = targetWidthPx > 0 ? targetWidthPx : targetHeightPx;
+        int height = targetHeightPx > 0 ? targetHeightPx : targetWidthPx;
+        return new ResizeOptions(width, height);
+    }
+
+    /**
+     * Returns the factor a {@code width x height} bitmap needs to be scaled with to fit the target
+     * size, or 1 if it already fits.
+     */
+    float fitScale(int width, int height) {
+        float scale = 1f;
+        if (targetWidthPx > 0 && width > targetWidthPx) {
+            scale = Math.min(scale, (float) targetWidthPx / width);
+        }
+        if (targetHeightPx > 0 && height > targetHeightPx) {
+            scale = Math.min(scale, (float) targetHeightPx / height);
+        }
+        return scale;
+    }
+
+    /**
+     * Returns the factor a {@code width x height} vector image is scaled with to fill the target size
+     * as far as its aspect ratio allows, or 1 if there is no target size. Unlike {@link #fitScale}
+     * this scales up as well, a vector stays sharp at any size.
+     */
+    float renderScale(float width, float height) {
+        if (!hasTargetSize()) {
+            return 1f;
+        }
+        float scale = Float.MAX_VALUE;
+        if (targetWidthPx > 0) {
+            scale = targetWidthPx / width;
+        }
+        if (targetHeightPx > 0) {
+            scale = Math.min(scale, targetHeightPx / height);
+        }
+        return scale;
+    }
+
+    /**
+     * Returns the backoff before retry number {@code retry} (1 for the first): exponential, with
+     * jitter so that images failing together don't retry together.
+     */
+    long retryBackoffMillis(int retry, @NonNull Random random) {
+        long backoff = Math.min(retryBackoffMs << Math.min(retry - 1, 30), MAX_RETRY_BACKOFF_MS);
+        // somewhere between half and all of the exponential backoff
+        return backoff / 2 + (long) (random.nextDouble() * (backoff - backoff / 2));
+    }
+
+    /**
+     * Returns the largest power of two a {@code width x height} image can be subsampled by while
+     * still covering the target size.
+     */
+    int sampleSize(int width, int height) {
+        if (!hasTargetSize()) {
+            return 1;
+        }
+        int sampleSize = 1;
+        while (covers(width / (sampleSize * 2), height / (sampleSize * 2))) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private boolean covers(int width, int height) {
+        return width > 0 && height > 0
+            && (targetWidthPx == 0 || width >= targetWidthPx)
+            && (targetHeightPx == 0 || height >= targetHeightPx);
+    }
+
+    void writeToParcel(Parcel dest) {
+        dest.writeLong(loadTimeoutMs);
+        dest.writeInt(targetWidthPx);
+        dest.writeInt(targetHeightPx);
+        dest.writeFloat(density);
+        dest.writeString(bitmapConfig.name());
+        dest.writeLong(diskCacheTtlMs);
+        dest.writeInt(maxRetries);
+        dest.writeLong(retryBackoffMs);
+        dest.writeDouble(hedgePercentile);
+        dest.writeString(fallbackDrawable);
+        dest.writeInt(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            dest.writeString(header.getKey());
+            dest.writeString(header.getValue());
+        }
+    }
+
+    static ImageLoadOptions readFromParcel(Parcel in) {
+        long loadTimeoutMs = in.readLong();
+        int targetWidthPx = in.readInt();
+        int targetHeightPx = in.readInt();
+        float density = in.readFloat();
+        Bitmap.Config bitmapConfig = parseBitmapConfig(in.readString());
+        long diskCacheTtlMs = in.readLong();
+        int maxRetries = in.readInt();
+        long retryBackoffMs = in.readLong();
+        double hedgePercentile = in.readDouble();
+        String fallbackDrawable = in.readString();
+        int headerCount = in.readInt();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(in.readString(), in.readString());
+        }
+        return new ImageLoadOptions(loadTimeoutMs, targetWidthPx, targetHeightPx, density, bitmapConfig, diskCacheTtlMs,
+            maxRetries, retryBackoffMs, hedgePercentile, fallbackDrawable, headers);
+    }
+}
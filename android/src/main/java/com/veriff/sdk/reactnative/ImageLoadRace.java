@@ -0,0 +1,118 @@
+package com.veriff.sdk.reactnative;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.common.references.CloseableReference;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Settles one image fetch that may be raced by a hedged request: the first bitmap wins, a failure
+ * only settles the race once every started request has failed.
+ */
+final class ImageLoadRace {
+    private final CountDownLatch settled = new CountDownLatch(1);
+
+    private final AtomicReference<Result> result = new AtomicReference<>(null);
+
+    private int started;
+
+    private int failed;
+
+    /**
+     * Registers another request, returns {@code false} if the race is already settled and there is
+     * no point in starting it.
+     */
+    synchronized boolean start() {
+        if (result.get() != null) {
+            return false;
+        }
+        started++;
+        return true;
+    }
+
+    /**
+     * Offers a bitmap, returns {@code false} if the race was already settled, the caller still owns
+     * the bitmap then.
+     */
+    boolean win(@NonNull CloseableReference<Bitmap> bitmap, boolean hedged) {
+        return settle(new Result(bitmap, hedged));
+    }
+
+    void fail(@NonNull IOException error) {
+        synchronized (this) {
+            failed++;
+            if (failed < started) {
+                // another request may still deliver
+                return;
+            }
+        }
+        settle(new Result(error));
+    }
+
+    /**
+     * Waits up to {@code timeoutNanos} for the race to settle and returns its result, {@code null}
+     * if it hasn't settled yet.
+     */
+    @Nullable
+    Result await(long timeoutNanos) throws InterruptedException {
+        if (timeoutNanos > 0) {
+            settled.await(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return result.get();
+    }
+
+    /**
+     * Stops waiting for the race. Returns {@code null} if it was abandoned before it settled,
+     * otherwise its result, which the caller now has to release.
+     */
+    @Nullable
+    Result abandon() {
+        if (settle(Result.ABANDONED)) {
+            return null;
+        }
+        return result.get();
+    }
+
+    private boolean settle(Result settledResult) {
+        boolean set = result.compareAndSet(null, settledResult);
+        settled.countDown();
+        return set;
+    }
+
+    static final class Result {
+        /**
+         * Marks a load the caller stopped waiting for.
+         */
+        private static final Result ABANDONED = new Result(new IOException("Image load abandoned"));
+
+        @Nullable
+        final IOException error;
+
+        @Nullable
+        final CloseableReference<Bitmap> bitmap;
+
+        /**
+         * Whether the bitmap came from the hedged request rather than the first one.
+         */
+        final boolean hedged;
+
+        private Result(IOException error) {
+            this.error = error;
+            this.bitmap = null;
+            this.hedged = false;
+        }
+
+        private Result(CloseableReference<Bitmap> bitmap, boolean hedged) {
+            this.error = null;
+            this.bitmap = bitmap;
+            this.hedged = hedged;
+        }
+    }
+}
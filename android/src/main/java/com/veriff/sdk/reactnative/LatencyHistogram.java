@@ -0,0 +1,84 @@
+package com.veriff.sdk.reactnative;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two millisecond buckets, from under 1ms up to
+ * {@code 2^(BUCKET_COUNT - 2)}ms plus an overflow bucket.
+ */
+final class LatencyHistogram {
+    static final int BUCKET_COUNT = 18;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max;
+        do {
+            max = maxNanos.get();
+        } while (value > max && !maxNanos.compareAndSet(max, value));
+    }
+
+    /**
+     * Inclusive upper bound of bucket {@code index} in milliseconds, {@link Long#MAX_VALUE} for the
+     * overflow bucket.
+     */
+    static long bucketUpperBoundMillis(int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << index;
+    }
+
+    private static int bucketOf(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis <= 1) {
+            return 0;
+        }
+        // smallest power of two >= millis
+        int index = 64 - Long.numberOfLeadingZeros(millis - 1);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long bucketCount(int index) {
+        return buckets.get(index);
+    }
+
+    double meanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / (double) n / 1_000_000.0;
+    }
+
+    double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Returns the upper bound of the bucket the {@code percentile} (0-100) falls into, capped at the
+     * largest recorded value.
+     */
+    double percentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBoundMillis(i), maxMillis());
+            }
+        }
+        return maxMillis();
+    }
+}
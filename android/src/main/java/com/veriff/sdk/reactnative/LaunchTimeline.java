@@ -0,0 +1,102 @@
+package com.veriff.sdk.reactnative;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how long each stage of a launch takes, from the JS call to the Veriff activity and from
+ * its result back to the resolved promise, into per-stage {@link LatencyHistogram}s and hands every
+ * span to an optional {@link Listener}.
+ * <p>
+ * Timestamps come from {@link SystemClock#elapsedRealtimeNanos()}, which is monotonic.
+ */
+final class LaunchTimeline {
+    static final String STAGE_PARSE_ARGUMENTS = "parseArguments";
+    static final String STAGE_BUILD_CONFIGURATION = "buildConfiguration";
+    static final String STAGE_IMAGE_LOAD = "imageLoad";
+    static final String STAGE_CREATE_INTENT = "createIntent";
+    static final String STAGE_START_ACTIVITY = "startActivity";
+    /**
+     * From starting the Veriff activity until it is in the foreground.
+     */
+    static final String STAGE_ACTIVITY_VISIBLE = "activityVisible";
+    static final String STAGE_ACTIVITY_RESULT = "activityResult";
+    static final String STAGE_RESOLVE = "resolve";
+
+    /**
+     * Time module work spent queued for, and running on, the {@link ModuleExecutor}.
+     */
+    static final String STAGE_QUEUE_WAIT = "queueWait";
+    static final String STAGE_EXECUTE = "execute";
+
+    interface Listener {
+        /**
+         * @param sessionToken the session the span belongs to, {@code null} for work that isn't tied
+         *                     to a single session, like image loads
+         */
+        void onSpan(@Nullable String sessionToken, @NonNull String stage, long startNanos, long durationNanos);
+    }
+
+    private static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Nullable
+    private static volatile Listener listener;
+
+    private LaunchTimeline() {
+    }
+
+    static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    static void setListener(@Nullable Listener newListener) {
+        listener = newListener;
+    }
+
+    /**
+     * Clears the listener if it is still {@code expected}, so a module going away doesn't remove
+     * the listener of its replacement.
+     */
+    static void clearListener(@NonNull Listener expected) {
+        if (listener == expected) {
+            listener = null;
+        }
+    }
+
+    /**
+     * Records the span from {@code startNanos} until now and returns now, so consecutive stages can
+     * be chained.
+     */
+    static long mark(@Nullable String sessionToken, @NonNull String stage, long startNanos) {
+        long end = now();
+        record(sessionToken, stage, startNanos, end - startNanos);
+        return end;
+    }
+
+    static void record(@Nullable String sessionToken, @NonNull String stage, long startNanos, long durationNanos) {
+        LatencyHistogram histogram = histograms.get(stage);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(stage, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(durationNanos);
+
+        Listener current = listener;
+        if (current != null) {
+            current.onSpan(sessionToken, stage, startNanos, durationNanos);
+        }
+    }
+
+    static Map<String, LatencyHistogram> histograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+}
@@ -0,0 +1,111 @@
+package com.veriff.sdk.reactnative;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides how much the module gives back when the system asks the app to trim its memory, and
+ * releases the caches accordingly.
+ * <p>
+ * The Veriff flow is camera heavy and runs in the host app's process, so every byte the module
+ * keeps around while it runs makes the process a likelier target for the low memory killer.
+ * Bitmaps still in use keep their own references, trimming only drops what is cached for later.
+ */
+final class MemoryPressure {
+    static final int TIER_NONE = 0;
+
+    /**
+     * Halve the branding image cache.
+     */
+    static final int TIER_MODERATE = 1;
+
+    /**
+     * Keep a quarter of the branding image cache and drop configurations cached by content.
+     */
+    static final int TIER_LOW = 2;
+
+    /**
+     * Drop every cached bitmap and every cached configuration.
+     */
+    static final int TIER_CRITICAL = 3;
+
+    private MemoryPressure() {
+    }
+
+    /**
+     * What a trim gave back.
+     */
+    static final class Report {
+        final int level;
+        final int tier;
+        /**
+         * Bytes of bitmaps the branding image cache let go of. Bitmaps that are still shown or
+         * still referenced elsewhere stay in memory, so this is an upper bound on what was freed.
+         */
+        int imageCacheBytesDropped;
+
+        int imagesEvicted;
+        int configurationsDropped;
+        int sessionsExpired;
+
+        Report(int level, int tier) {
+            this.level = level;
+            this.tier = tier;
+        }
+    }
+
+    /**
+     * Maps an {@link ComponentCallbacks2#onTrimMemory(int)} level to a tier, {@code onLowMemory}
+     * counts as {@link ComponentCallbacks2#TRIM_MEMORY_COMPLETE}.
+     */
+    static int tierFor(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            return TIER_CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return TIER_LOW;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // background and UI hidden, the app may be back soon
+            return TIER_MODERATE;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return TIER_CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return TIER_LOW;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return TIER_MODERATE;
+        }
+        return TIER_NONE;
+    }
+
+    /**
+     * Releases the caches for {@code level}, the caller adds what it released itself to the report.
+     */
+    @NonNull
+    static Report trim(int level, @NonNull BrandingImageCache imageCache, @NonNull ConfigurationCache configurationCache) {
+        Report report = new Report(level, tierFor(level));
+        switch (report.tier) {
+            case TIER_CRITICAL:
+                trimImages(imageCache, 0, report);
+                report.configurationsDropped = configurationCache.clear();
+                break;
+            case TIER_LOW:
+                trimImages(imageCache, imageCache.maxSizeBytes() / 4, report);
+                report.configurationsDropped = configurationCache.clear();
+                break;
+            case TIER_MODERATE:
+                trimImages(imageCache, imageCache.maxSizeBytes() / 2, report);
+                break;
+            default:
+                break;
+        }
+        return report;
+    }
+
+    private static void trimImages(@NonNull BrandingImageCache imageCache, int maxBytes, @NonNull Report report) {
+        synchronized (imageCache) {
+            int evictionsBefore = imageCache.evictionCount();
+            report.imageCacheBytesDropped = imageCache.trimToSize(maxBytes);
+            report.imagesEvicted = imageCache.evictionCount() - evictionsBefore;
+        }
+    }
+}
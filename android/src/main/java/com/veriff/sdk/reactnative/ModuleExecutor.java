@@ -0,0 +1,90 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the module's calls off React Native's shared native modules thread, so parsing, building
+ * configurations and resource lookups don't hold up other modules.
+ * <p>
+ * The queue is bounded: when it's full, work is rejected rather than piled up, and the caller
+ * rejects its promise. Time spent queued and running is recorded in the {@link LaunchTimeline}.
+ */
+final class ModuleExecutor {
+    static final int DEFAULT_THREADS = 2;
+    static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int queueCapacity;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    ModuleExecutor() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    ModuleExecutor(int threads, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory("veriff-module"));
+        // idle modules shouldn't keep threads around
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues {@code task}, returns {@code false} if the executor is saturated or shut down.
+     */
+    boolean execute(@NonNull Runnable task) {
+        long enqueuedAt = LaunchTimeline.now();
+        try {
+            executor.execute(() -> {
+                long startedAt = LaunchTimeline.now();
+                LaunchTimeline.record(null, LaunchTimeline.STAGE_QUEUE_WAIT, enqueuedAt, startedAt - enqueuedAt);
+                try {
+                    task.run();
+                } finally {
+                    LaunchTimeline.mark(null, LaunchTimeline.STAGE_EXECUTE, startedAt);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    int queueCapacity() {
+        return queueCapacity;
+    }
+
+    int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    long completedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    long rejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Lets queued work finish and rejects anything new.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
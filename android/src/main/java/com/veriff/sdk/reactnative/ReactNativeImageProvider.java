@@ -2,46 +2,101 @@ package com.veriff.sdk.reactnative;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
-import android.os.Handler;
-import android.os.Looper;
+import android.net.Uri;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.WorkerThread;
 
 import com.facebook.common.references.CloseableReference;
+import com.facebook.datasource.BaseDataSubscriber;
 import com.facebook.datasource.DataSource;
 import com.facebook.drawee.backends.pipeline.Fresco;
-import com.facebook.imagepipeline.datasource.BaseBitmapDataSubscriber;
+import com.facebook.imagepipeline.bitmaps.SimpleBitmapReleaser;
+import com.facebook.imagepipeline.common.ImageDecodeOptions;
 import com.facebook.imagepipeline.image.CloseableImage;
+import com.facebook.imagepipeline.image.CloseableStaticBitmap;
 import com.facebook.imagepipeline.request.ImageRequest;
 import com.facebook.imagepipeline.request.ImageRequestBuilder;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.modules.fresco.ReactNetworkImageRequest;
 import com.veriff.VeriffBranding;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicReference;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
 
 public class ReactNativeImageProvider implements VeriffBranding.DrawableProvider, Parcelable {
     private static final String TAG = "ReactNativeImage";
 
+    /**
+     * Upper bound for a single image load when the caller doesn't provide one.
+     */
+    static final long DEFAULT_LOAD_TIMEOUT_MS = 10_000;
+
+    /**
+     * Image loads recorded before the latency percentile is trusted to decide when to hedge.
+     */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
     private final String url;
 
-    private final Handler main = new Handler(Looper.getMainLooper());
+    private final ImageLoadOptions options;
+
+    /**
+     * Path of this image's entry in the {@link DecodedImageDiskCache}, {@code null} if it isn't
+     * disk cached. It's parceled along with the url, so the provider the Veriff activity recreates,
+     * also after process death, maps the decoded pixels from that file instead of fetching and
+     * decoding the image again, as long as the entry is still there.
+     */
+    @Nullable
+    private final String diskCachePath;
 
     public ReactNativeImageProvider(String url) {
+        this(url, ImageLoadOptions.DEFAULT);
+    }
+
+    ReactNativeImageProvider(String url, ImageLoadOptions options) {
+        this(url, options, null);
+    }
+
+    private ReactNativeImageProvider(String url, ImageLoadOptions options, @Nullable String diskCachePath) {
         this.url = url;
+        this.options = options;
+        this.diskCachePath = diskCachePath;
     }
 
     protected ReactNativeImageProvider(Parcel in) {
-        this(in.readString());
+        this(in.readString(), ImageLoadOptions.readFromParcel(in), in.readString());
+    }
+
+    /**
+     * Returns a provider that carries the path of its disk cache entry through parceling.
+     */
+    static ReactNativeImageProvider create(Context context, String url, ImageLoadOptions options) {
+        String diskCachePath = isDiskCacheable(url)
+            ? DecodedImageDiskCache.entryFile(context, new BrandingImageCache.Key(url, options)).getPath()
+            : null;
+        return new ReactNativeImageProvider(url, options, diskCachePath);
+    }
+
+    /**
+     * Resource ids are only stable within one build of the app, and rendering them is cheap.
+     */
+    private static boolean isDiskCacheable(String url) {
+        return !VectorImageRenderer.isResource(url);
     }
 
     @NonNull
@@ -49,77 +104,301 @@ public class ReactNativeImageProvider implements VeriffBranding.DrawableProvider
     @Override
     @WorkerThread
     public Drawable loadImage(@NonNull @NotNull Context context) throws IOException {
-        ImageRequest request = ImageRequestBuilder.fromRequest(ImageRequest.fromUri(this.url)).build();
+        try {
+            return ReferenceBitmapDrawable.create(context.getResources(), loadBitmap(context));
+        } catch (IOException e) {
+            Drawable fallback = Thread.currentThread().isInterrupted() ? null : loadFallback(context);
+            if (fallback == null) {
+                throw e;
+            }
+            VeriffLog.w(TAG, "Showing fallback {} instead of the image from {}", options.fallbackDrawable, this.url, e);
+            ImageLoadMetrics.recordFallback();
+            return fallback;
+        }
+    }
+
+    /**
+     * Returns the bundled fallback drawable, {@code null} if there is none.
+     */
+    @Nullable
+    private Drawable loadFallback(Context context) {
+        if (options.fallbackDrawable == null) {
+            return null;
+        }
+        int id = DrawableResolver.getDrawableId(context, options.fallbackDrawable);
+        if (id == 0) {
+            VeriffLog.w(TAG, "Fallback drawable {} not found", options.fallbackDrawable);
+            return null;
+        }
+        return context.getDrawable(id);
+    }
+
+    /**
+     * Returns a reference to the bitmap for this provider's url and options, from the shared memory
+     * cache or the decoded disk cache if possible. The caller owns the returned reference.
+     */
+    @WorkerThread
+    CloseableReference<Bitmap> loadBitmap(Context context) throws IOException {
+        BrandingImageCache.Key cacheKey = cacheKey();
+        CloseableReference<Bitmap> cached = BrandingImageCache.getInstance().get(cacheKey);
+        if (cached != null) {
+            VeriffLog.v(TAG, "Loading image from {} hit the cache", this.url);
+            return cached;
+        }
+
+        boolean diskCacheable = isDiskCacheable(this.url);
+        Bitmap fromDisk = diskCacheable
+            ? DecodedImageDiskCache.read(diskCacheFile(context, cacheKey), cacheKey, options.diskCacheTtlMs)
+            : null;
+        if (fromDisk != null) {
+            VeriffLog.v(TAG, "Loading image from {} hit the disk cache", this.url);
+            CloseableReference<Bitmap> bitmapReference = CloseableReference.of(fromDisk, SimpleBitmapReleaser.getInstance());
+            BrandingImageCache.getInstance().put(cacheKey, bitmapReference);
+            return bitmapReference;
+        }
+
+        CloseableReference<Bitmap> bitmapReference = fetchBitmap(context);
+        BrandingImageCache.getInstance().put(cacheKey, bitmapReference);
+        if (diskCacheable) {
+            DecodedImageDiskCache.writeAsync(context, cacheKey, bitmapReference);
+        }
+        return bitmapReference;
+    }
+
+    private File diskCacheFile(Context context, BrandingImageCache.Key cacheKey) {
+        return diskCachePath != null ? new File(diskCachePath) : DecodedImageDiskCache.entryFile(context, cacheKey);
+    }
+
+    /**
+     * Returns the key this provider's image is cached under.
+     */
+    BrandingImageCache.Key cacheKey() {
+        return new BrandingImageCache.Key(this.url, options);
+    }
+
+    /**
+     * Fetches the image, retrying failed fetches with backoff as long as the deadline allows.
+     */
+    @WorkerThread
+    private CloseableReference<Bitmap> fetchBitmap(Context context) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.loadTimeoutMs);
+        IOException lastError = null;
+        for (int attempt = 0; attempt <= options.maxRetries; attempt++) {
+            if (attempt > 0) {
+                long backoffMs = options.retryBackoffMillis(attempt, ThreadLocalRandom.current());
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs) >= deadline) {
+                    // a retry couldn't finish in time anyway, fail now rather than at the deadline
+                    break;
+                }
+                VeriffLog.d(TAG, "Retrying image from {} in {}ms", this.url, backoffMs);
+                ImageLoadMetrics.recordRetry();
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // preserve interrupt status
+                    throw new InterruptedIOException("Interrupted while loading image");
+                }
+            }
+            try {
+                return VectorImageRenderer.canRender(this.url) ? renderOnce(context, deadline) : fetchOnce(deadline);
+            } catch (InterruptedIOException e) {
+                // out of time or interrupted, either way there's no point in retrying
+                throw e;
+            } catch (IOException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Renders a vector image at the target size, which Fresco can't do.
+     */
+    @WorkerThread
+    private CloseableReference<Bitmap> renderOnce(Context context, long deadline) throws IOException {
+        long start = System.nanoTime();
+        Bitmap bitmap = VectorImageRenderer.render(context, this.url, options, deadline);
+        ImageLoadMetrics.recordVectorRender();
+        VeriffLog.d(TAG, "Rendered {} in {}ms", this.url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return CloseableReference.of(bitmap, SimpleBitmapReleaser.getInstance());
+    }
+
+    /**
+     * Builds a request that React Native's network fetcher sends with the image's headers, the
+     * same way it does for the headers of an image source.
+     */
+    private ImageRequest withHeaders(ImageRequestBuilder builder) {
+        JavaOnlyMap headers = new JavaOnlyMap();
+        for (Map.Entry<String, String> header : options.headers.entrySet()) {
+            headers.putString(header.getKey(), header.getValue());
+        }
+        return ReactNetworkImageRequest.fromBuilderWithHeaders(builder, headers);
+    }
+
+    /**
+     * Fetches the image through Fresco, racing a hedged request against it if it takes longer than
+     * usual.
+     */
+    @WorkerThread
+    private CloseableReference<Bitmap> fetchOnce(long deadline) throws IOException {
+        long start = System.nanoTime();
+        ImageRequestBuilder builder = ImageRequestBuilder.newBuilderWithSource(Uri.parse(this.url))
+            .setResizeOptions(options.resizeOptions())
+            .setImageDecodeOptions(ImageDecodeOptions.newBuilder().setBitmapConfig(options.bitmapConfig).build());
+        ImageRequest request = options.headers.isEmpty() ? builder.build() : withHeaders(builder);
+        ImageLoadRace race = new ImageLoadRace();
+        race.start();
         DataSource<CloseableReference<CloseableImage>> source =
             Fresco.getImagePipeline().fetchDecodedImage(request, null);
 
-        CountDownLatch imageLoadLatch = new CountDownLatch(1);
-        AtomicReference<Result> atomicResult = new AtomicReference<>(null);
-
-        source.subscribe(new BaseBitmapDataSubscriber() {
+        source.subscribe(new BaseDataSubscriber<CloseableReference<CloseableImage>>() {
             @Override
-            protected void onNewResultImpl(@Nullable Bitmap bitmap) {
-                if (bitmap == null) {
-                    atomicResult.set(new Result(new IOException("Loaded bitmap was null")));
-                } else {
-                    atomicResult.set(new Result(bitmap.copy(bitmap.getConfig(), false)));
+            protected void onNewResultImpl(DataSource<CloseableReference<CloseableImage>> dataSource) {
+                if (!dataSource.isFinished()) {
+                    // only interested in the final image, not in progressive intermediate results
+                    return;
+                }
+                CloseableReference<CloseableImage> imageReference = dataSource.getResult();
+                CloseableReference<Bitmap> bitmapReference = null;
+                try {
+                    if (imageReference != null && imageReference.get() instanceof CloseableStaticBitmap) {
+                        bitmapReference = ((CloseableStaticBitmap) imageReference.get()).cloneUnderlyingBitmapReference();
+                    }
+                } finally {
+                    CloseableReference.closeSafely(imageReference);
+                }
+                if (bitmapReference == null) {
+                    race.fail(new IOException("Loaded image was not a bitmap"));
+                } else if (!race.win(bitmapReference, false)) {
+                    // the loader already gave up on us or the hedged request won, nobody is going to release the bitmap
+                    bitmapReference.close();
                 }
-                imageLoadLatch.countDown();
             }
 
             @Override
             protected void onFailureImpl(DataSource<CloseableReference<CloseableImage>> dataSource) {
                 Throwable failure = dataSource.getFailureCause();
                 if (failure == null) {
-                    atomicResult.set(new Result(new IOException("Provided failure cause was null")));
+                    race.fail(new IOException("Provided failure cause was null"));
                 } else if (failure instanceof IOException) {
-                    atomicResult.set(new Result((IOException) failure));
+                    race.fail((IOException) failure);
                 } else {
-                    atomicResult.set(new Result(new IOException("Failed loading image", failure)));
+                    race.fail(new IOException("Failed loading image", failure));
                 }
-                imageLoadLatch.countDown();
             }
-        }, main::post);
-
+        }, DecodeExecutor.INSTANCE);
 
+        Call hedge = null;
         try {
-            imageLoadLatch.await();
-            Result result = atomicResult.get();
+            ImageLoadRace.Result result = null;
+            long hedgeDelay = hedgeDelayNanos();
+            if (hedgeDelay > 0 && start + hedgeDelay < deadline && HedgedImageFetch.canHedge(this.url)) {
+                result = race.await(hedgeDelay);
+                if (result == null) {
+                    VeriffLog.d(TAG, "Loading image from {} is slow, hedging after {}ms", this.url,
+                        TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                    hedge = HedgedImageFetch.start(this.url, options, race);
+                }
+            }
+            if (result == null) {
+                result = race.await(deadline - System.nanoTime());
+            }
+            if (result == null) {
+                result = race.abandon();
+                if (result == null) {
+                    ImageLoadMetrics.record(ImageLoadMetrics.Outcome.TIMEOUT, System.nanoTime() - start);
+                    throw new InterruptedIOException("Timed out after " + options.loadTimeoutMs + "ms loading image from " + this.url);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (hedge != null) {
+                ImageLoadMetrics.recordHedge(result.hedged);
+            }
 
             if (result.error != null) {
-                Log.w(TAG, "Loading image from " + this.url + " failed", result.error);
+                ImageLoadMetrics.record(ImageLoadMetrics.Outcome.FAILURE, elapsed);
+                VeriffLog.w(TAG, "Loading image from {} failed", this.url, result.error);
                 throw result.error;
             } else {
-                Log.w(TAG, "Loading image got a bitmap with size w=" + result.bitmap.getWidth() + " h=" + result.bitmap.getHeight());
-                return new BitmapDrawable(context.getResources(), result.bitmap);
+                ImageLoadMetrics.record(ImageLoadMetrics.Outcome.SUCCESS, elapsed);
+                CloseableReference<Bitmap> bitmapReference = fitToTargetSize(result.bitmap);
+                Bitmap bitmap = bitmapReference.get();
+                VeriffLog.d(TAG, result.hedged ? "Loaded a {}x{} image in {}ms from the hedged request" : "Loaded a {}x{} image in {}ms",
+                    bitmap.getWidth(), bitmap.getHeight(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+                return bitmapReference;
             }
         } catch (InterruptedException e) {
+            ImageLoadRace.Result result = race.abandon();
+            if (result == null) {
+                ImageLoadMetrics.record(ImageLoadMetrics.Outcome.INTERRUPTED, System.nanoTime() - start);
+            } else if (result.bitmap != null) {
+                result.bitmap.close();
+            }
             Thread.currentThread().interrupt(); // preserve interrupt status
-            throw new IOException("Interrupted while loading image");
+            throw new InterruptedIOException("Interrupted while loading image");
+        } finally {
+            // cancels the requests if they're still in flight, releases the result otherwise
+            source.close();
+            if (hedge != null) {
+                hedge.cancel();
+            }
         }
     }
 
-    private static class Result {
-        @Nullable
-        private final IOException error;
-
-        @Nullable
-        private final Bitmap bitmap;
-
-        private Result(IOException error) {
-            this.error = error;
-            this.bitmap = null;
+    /**
+     * Returns how long to wait before hedging, the configured percentile of past image loads, or 0
+     * if hedging is off or there aren't enough past loads to tell what's slow.
+     */
+    private long hedgeDelayNanos() {
+        if (options.hedgePercentile <= 0) {
+            return 0;
+        }
+        LatencyHistogram history = LaunchTimeline.histograms().get(LaunchTimeline.STAGE_IMAGE_LOAD);
+        if (history == null || history.count() < MIN_HEDGE_SAMPLES) {
+            return 0;
         }
+        return (long) (history.percentileMillis(options.hedgePercentile) * 1_000_000);
+    }
 
-        private Result(Bitmap bitmap) {
-            this.error = null;
-            this.bitmap = bitmap;
+    /**
+     * Scales the decoded bitmap down if Fresco couldn't downsample it to the target size (it only
+     * does that for JPEGs unless downsampling is enabled for the whole pipeline). Fresco's own bitmap
+     * is shared rather than copied, so the only extra memory this provider ever holds is a scaled
+     * down bitmap.
+     */
+    private CloseableReference<Bitmap> fitToTargetSize(CloseableReference<Bitmap> bitmapReference) {
+        Bitmap bitmap = bitmapReference.get();
+        int decodedBytes = bitmap.getAllocationByteCount();
+        float scale = options.fitScale(bitmap.getWidth(), bitmap.getHeight());
+        if (scale >= 1f) {
+            ImageLoadMetrics.recordBytesSaved(decodedBytes, 0);
+            VeriffLog.v(TAG, "Shared {} decoded bytes with the image pipeline instead of copying", decodedBytes);
+            return bitmapReference;
         }
+
+        int width = Math.max(1, Math.round(bitmap.getWidth() * scale));
+        int height = Math.max(1, Math.round(bitmap.getHeight() * scale));
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+        bitmapReference.close();
+        int savedBytes = decodedBytes - scaled.getAllocationByteCount();
+        ImageLoadMetrics.recordBytesSaved(decodedBytes, savedBytes);
+        VeriffLog.v(TAG, "Scaled image down to {}x{}, saved {} bytes", width, height, savedBytes);
+        return CloseableReference.of(scaled, SimpleBitmapReleaser.getInstance());
+    }
+
+    /**
+     * Receives Fresco callbacks off the main thread so a busy UI thread can't hold up delivery.
+     */
+    private static final class DecodeExecutor {
+        private static final ExecutorService INSTANCE =
+            Executors.newFixedThreadPool(2, new NamedThreadFactory("veriff-image-decode"));
     }
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
         dest.writeString(url);
+        options.writeToParcel(dest);
+        dest.writeString(diskCachePath);
     }
 
     @Override
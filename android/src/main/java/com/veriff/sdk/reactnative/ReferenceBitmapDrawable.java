@@ -0,0 +1,88 @@
+package com.veriff.sdk.reactnative;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.common.references.CloseableReference;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link BitmapDrawable} that keeps the {@link CloseableReference} of its bitmap open until it is
+ * closed, so the bitmap can be shared with Fresco instead of copied.
+ * <p>
+ * Drawables don't learn when they stop being shown, so every open drawable is tracked here and the
+ * module closes them all with {@link #releaseAll()} once the Veriff flow they were loaded for has
+ * finished. A closed drawable draws nothing rather than touch a bitmap that may have been recycled
+ * or reused since.
+ */
+final class ReferenceBitmapDrawable extends BitmapDrawable implements Closeable {
+    private static final Set<ReferenceBitmapDrawable> open = new HashSet<>();
+
+    @Nullable
+    private CloseableReference<Bitmap> bitmapReference;
+
+    private volatile boolean closed;
+
+    private ReferenceBitmapDrawable(Resources resources, @NonNull CloseableReference<Bitmap> bitmapReference) {
+        super(resources, bitmapReference.get());
+        this.bitmapReference = bitmapReference;
+    }
+
+    /**
+     * Returns a drawable that owns {@code bitmapReference} until it is closed.
+     */
+    @NonNull
+    static ReferenceBitmapDrawable create(Resources resources, @NonNull CloseableReference<Bitmap> bitmapReference) {
+        ReferenceBitmapDrawable drawable = new ReferenceBitmapDrawable(resources, bitmapReference);
+        synchronized (open) {
+            open.add(drawable);
+        }
+        return drawable;
+    }
+
+    /**
+     * Closes every drawable that is still open, returns how many there were.
+     */
+    static int releaseAll() {
+        List<ReferenceBitmapDrawable> drawables;
+        synchronized (open) {
+            drawables = new ArrayList<>(open);
+            open.clear();
+        }
+        for (ReferenceBitmapDrawable drawable : drawables) {
+            drawable.close();
+        }
+        return drawables.size();
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (!closed) {
+            super.draw(canvas);
+        }
+    }
+
+    @Override
+    public void close() {
+        CloseableReference<Bitmap> reference;
+        synchronized (this) {
+            closed = true;
+            reference = bitmapReference;
+            bitmapReference = null;
+        }
+        synchronized (open) {
+            open.remove(this);
+        }
+        CloseableReference.closeSafely(reference);
+    }
+}
@@ -0,0 +1,93 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableMap;
+import com.veriff.VeriffResult;
+import com.veriff.VeriffResult.Status;
+
+/**
+ * Maps Veriff SDK results to the statuses and error codes handed to JS.
+ */
+final class ResultCodes {
+    /**
+     * The user canceled left the flow before completing it.
+     */
+    static final String STATUS_CANCELED = "STATUS_CANCELED";
+
+    /**
+     * The flow was completed, note that this doesn't mean there's a decision yet.
+     */
+    static final String STATUS_DONE = "STATUS_DONE";
+
+    /**
+     * The flow did not complete successfully.
+     */
+    static final String STATUS_ERROR = "STATUS_ERROR";
+
+    private static final String KEY_TOKEN = "sessionToken";
+    private static final String KEY_STATUS = "status";
+    private static final String KEY_ERROR = "error";
+
+    private static final String ERROR_UNABLE_TO_ACCESS_CAMERA = "UNABLE_TO_ACCESS_CAMERA";
+    private static final String ERROR_UNABLE_TO_RECORD_AUDIO = "UNABLE_TO_RECORD_AUDIO";
+    private static final String ERROR_UNABLE_TO_START_CAMERA = "UNABLE_TO_START_CAMERA";
+    private static final String ERROR_NO_IDENTIFICATION_METHODS_AVAILABLE = "NO_IDENTIFICATION_METHODS_AVAILABLE";
+    private static final String ERROR_UNSUPPORTED_SDK_VERSION = "UNSUPPORTED_SDK_VERSION";
+    private static final String ERROR_SESSION = "SESSION_ERROR";
+    private static final String ERROR_SETUP = "SETUP_ERROR";
+    private static final String ERROR_NETWORK = "NETWORK_ERROR";
+    private static final String ERROR_UNKNOWN = "UNKNOWN_ERROR";
+    private static final String ERROR_NFC_DISABLED = "NFC_DISABLED";
+    private static final String ERROR_DEVICE_HAS_NO_NFC = "DEVICE_HAS_NO_NFC";
+
+    private ResultCodes() {
+    }
+
+    /**
+     * Fills {@code result} with the session token, status and, if there is one, the error code.
+     */
+    static void writeResult(@NonNull WritableMap result, @NonNull String token, @NonNull Status status,
+                            @Nullable String error) {
+        result.putString(KEY_TOKEN, token);
+        result.putString(KEY_STATUS, statusToString(status));
+        if (error != null) {
+            result.putString(KEY_ERROR, error);
+        }
+    }
+
+    static String codeToError(VeriffResult.Error error) {
+        switch (error) {
+            case UNABLE_TO_ACCESS_CAMERA:
+                return ERROR_UNABLE_TO_ACCESS_CAMERA;
+            case UNABLE_TO_RECORD_AUDIO:
+                return ERROR_UNABLE_TO_RECORD_AUDIO;
+            case UNABLE_TO_START_CAMERA:
+                return ERROR_UNABLE_TO_START_CAMERA;
+            case UNSUPPORTED_SDK_VERSION:
+                  return ERROR_UNSUPPORTED_SDK_VERSION;
+            case SESSION_ERROR:
+                  return ERROR_SESSION;
+            case NETWORK_ERROR:
+                  return ERROR_NETWORK;
+            case SETUP_ERROR:
+                  return ERROR_SETUP;
+            case NFC_DISABLED:
+              return ERROR_NFC_DISABLED;
+            case DEVICE_HAS_NO_NFC:
+              return ERROR_DEVICE_HAS_NO_NFC;
+            case UNKNOWN_ERROR:
+            default:
+                return ERROR_UNKNOWN;
+        }
+    }
+
+    static String statusToString(Status status) {
+      switch (status){
+        case DONE: return STATUS_DONE;
+        case CANCELED: return STATUS_CANCELED;
+        default: return STATUS_ERROR;
+      }
+    }
+}
@@ -0,0 +1,73 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableMap;
+import com.veriff.VeriffResult;
+import com.veriff.VeriffResult.Status;
+
+/**
+ * The lifecycle events of a Veriff session as handed to JS, in the order they happen:
+ * {@link #TYPE_LAUNCHED}, {@link #TYPE_ACTIVITY_VISIBLE}, {@link #TYPE_RESULT_RECEIVED} and, for
+ * results with an error, {@link #TYPE_ERROR_MAPPED}.
+ */
+final class SessionEvents {
+    /**
+     * The Veriff activity was started.
+     */
+    static final String TYPE_LAUNCHED = "launched";
+
+    /**
+     * The Veriff activity came to the foreground for the first time.
+     */
+    static final String TYPE_ACTIVITY_VISIBLE = "activityVisible";
+
+    /**
+     * The result intent arrived, with the status it carries.
+     */
+    static final String TYPE_RESULT_RECEIVED = "resultReceived";
+
+    /**
+     * The Veriff SDK's error was mapped to the error code the promise resolves with.
+     */
+    static final String TYPE_ERROR_MAPPED = "errorMapped";
+
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_TOKEN = "sessionToken";
+    private static final String KEY_TIME = "time";
+    private static final String KEY_SINCE_LAUNCH_MS = "sinceLaunchMs";
+    private static final String KEY_STATUS = "status";
+    private static final String KEY_RESULT_CODE = "resultCode";
+    private static final String KEY_SDK_ERROR = "sdkError";
+    private static final String KEY_ERROR = "error";
+
+    private SessionEvents() {
+    }
+
+    /**
+     * Fills {@code event} with what every event has: its type, the session token, the wall clock
+     * time and, once the activity was started, the time since then.
+     */
+    static void write(@NonNull WritableMap event, @NonNull String type, @NonNull String token, long timeMillis,
+                      long launchedAtNanos, long nowNanos) {
+        event.putString(KEY_TYPE, type);
+        event.putString(KEY_TOKEN, token);
+        event.putDouble(KEY_TIME, timeMillis);
+        if (launchedAtNanos != 0) {
+            event.putDouble(KEY_SINCE_LAUNCH_MS, (nowNanos - launchedAtNanos) / 1_000_000.0);
+        }
+    }
+
+    static void writeResultReceived(@NonNull WritableMap event, int resultCode, @NonNull Status status) {
+        event.putInt(KEY_RESULT_CODE, resultCode);
+        event.putString(KEY_STATUS, ResultCodes.statusToString(status));
+    }
+
+    static void writeErrorMapped(@NonNull WritableMap event, @Nullable VeriffResult.Error sdkError, @NonNull String error) {
+        if (sdkError != null) {
+            event.putString(KEY_SDK_ERROR, sdkError.name());
+        }
+        event.putString(KEY_ERROR, error);
+    }
+}
@@ -0,0 +1,193 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Veriff sessions that have been launched and are waiting for their activity result, keyed by
+ * session token.
+ * <p>
+ * A second launch of a token that is still in flight doesn't start another flow, its promise
+ * joins the pending session and is settled together with the first one. Whether a session is
+ * still in flight is up to the caller, see {@link #removeIf(PendingSession)}.
+ */
+final class SessionRegistry {
+    /**
+     * Sessions older than this are given up on, their promises rejected.
+     */
+    static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final Map<String, PendingSession> sessions = new ConcurrentHashMap<>();
+
+    private final long ttlMs;
+
+    SessionRegistry() {
+        this(DEFAULT_TTL_MS);
+    }
+
+    SessionRegistry(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Registers {@code promise} for the session. Returns {@code true} if the session is new and has
+     * to be launched, {@code false} if the promise joined a launch that is already in flight.
+     */
+    boolean register(@NonNull String token, @NonNull String startUrl, @NonNull Promise promise, long nowMs) {
+        while (true) {
+            PendingSession session = new PendingSession(token, startUrl, nowMs, promise);
+            PendingSession existing = sessions.putIfAbsent(token, session);
+            if (existing == null) {
+                return true;
+            }
+            if (existing.join(promise)) {
+                return false;
+            }
+            // the existing session completed between the lookup and the join, try again
+            sessions.remove(token, existing);
+        }
+    }
+
+    @Nullable
+    PendingSession get(@NonNull String token) {
+        return sessions.get(token);
+    }
+
+    /**
+     * Removes the session and returns it completed, so no further promises can join it. Returns
+     * {@code null} if there's no such session.
+     */
+    @Nullable
+    PendingSession remove(@NonNull String token) {
+        PendingSession session = sessions.remove(token);
+        if (session != null) {
+            session.complete();
+        }
+        return session;
+    }
+
+    /**
+     * Removes {@code session} and returns it completed if it is still the one registered for its
+     * token, returns {@code null} otherwise.
+     */
+    @Nullable
+    PendingSession removeIf(@NonNull PendingSession session) {
+        if (!sessions.remove(session.token, session)) {
+            return null;
+        }
+        session.complete();
+        return session;
+    }
+
+    /**
+     * Returns the only pending session, or {@code null} if there are none or several of them.
+     */
+    @Nullable
+    PendingSession single() {
+        if (sessions.size() != 1) {
+            return null;
+        }
+        Iterator<PendingSession> iterator = sessions.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Removes and returns the sessions that were launched more than the TTL ago.
+     */
+    @NonNull
+    List<PendingSession> expire(long nowMs) {
+        List<PendingSession> expired = new ArrayList<>();
+        for (PendingSession session : sessions.values()) {
+            if (nowMs - session.startedAtMs > ttlMs && sessions.remove(session.token, session)) {
+                session.complete();
+                expired.add(session);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the most recently launched session whose Veriff activity hasn't been in the foreground
+     * yet, {@code null} if there is none.
+     */
+    @Nullable
+    PendingSession awaitingActivity() {
+        PendingSession latest = null;
+        for (PendingSession session : sessions.values()) {
+            if (session.launchedAtNanos != 0 && session.visibleAtNanos == 0
+                && (latest == null || session.launchedAtNanos > latest.launchedAtNanos)) {
+                latest = session;
+            }
+        }
+        return latest;
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    static final class PendingSession {
+        @NonNull
+        final String token;
+
+        @NonNull
+        final String startUrl;
+
+        final long startedAtMs;
+
+        /**
+         * When the Veriff activity was started, see {@link LaunchTimeline#now()}.
+         */
+        volatile long launchedAtNanos;
+
+        /**
+         * When the Veriff activity first came to the foreground, see {@link LaunchTimeline#now()}.
+         */
+        volatile long visibleAtNanos;
+
+        /**
+         * Whether the promises are settled as soon as the result arrives, before its events are
+         * emitted. Set if any of the launches that joined the session asked for it.
+         */
+        volatile boolean resolveEarly;
+
+        private final List<Promise> promises = new ArrayList<>(1);
+
+        private boolean completed;
+
+        private PendingSession(@NonNull String token, @NonNull String startUrl, long startedAtMs, @NonNull Promise promise) {
+            this.token = token;
+            this.startUrl = startUrl;
+            this.startedAtMs = startedAtMs;
+            this.promises.add(promise);
+        }
+
+        private synchronized boolean join(Promise promise) {
+            if (completed) {
+                return false;
+            }
+            promises.add(promise);
+            return true;
+        }
+
+        private synchronized void complete() {
+            completed = true;
+        }
+
+        /**
+         * The promises waiting for this session, only stable once the session has been removed.
+         */
+        synchronized List<Promise> promises() {
+            return new ArrayList<>(promises);
+        }
+    }
+}
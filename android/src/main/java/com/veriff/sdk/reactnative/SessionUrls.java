@@ -0,0 +1,243 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Builds Veriff session urls and takes the session token back out of them.
+ * <p>
+ * Session urls look like {@code http[s]://<host>/<prefix>/<token>[?query][#fragment]}. They are
+ * scanned in place rather than parsed into a full url, the token is the only thing ever copied out.
+ */
+final class SessionUrls {
+    static final String DEFAULT_BASE_URL = "https://magic.veriff.me";
+
+    private static final String SESSION_PATH = "/v/";
+    private static final String DEFAULT_START_URL_PREFIX = DEFAULT_BASE_URL + SESSION_PATH;
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+
+    private SessionUrls() {
+    }
+
+    /**
+     * A validated session and the url to launch it with.
+     */
+    static final class Session {
+        @NonNull
+        final String token;
+
+        @NonNull
+        final String startUrl;
+
+        Session(@NonNull String token, @NonNull String startUrl) {
+            this.token = token;
+            this.startUrl = startUrl;
+        }
+    }
+
+    /**
+     * Returns the session token from a session url, or {@code null} if the url doesn't have one.
+     */
+    @Nullable
+    static String extractToken(String startUrl) {
+        // the SDK returns us a token in the INTENT_EXTRA_SESSION_URL for matching
+        if (startUrl == null) {
+            return null;
+        }
+        long range = tokenRange(startUrl);
+        if (range < 0) {
+            return null;
+        }
+        return startUrl.substring(rangeStart(range), rangeEnd(range));
+    }
+
+    /**
+     * Returns the session url for {@code token}, on {@link #DEFAULT_BASE_URL} if no base url is given.
+     */
+    @NonNull
+    static String startUrl(@Nullable String baseUrl, @NonNull String token) {
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            return DEFAULT_START_URL_PREFIX.concat(token);
+        }
+        int baseLength = baseUrl.endsWith("/") ? baseUrl.length() - 1 : baseUrl.length();
+        return new StringBuilder(baseLength + SESSION_PATH.length() + token.length())
+            .append(baseUrl, 0, baseLength)
+            .append(SESSION_PATH)
+            .append(token)
+            .toString();
+    }
+
+    /**
+     * Validates a session given either as a session url or as a bare token on {@code baseUrl}
+     * ({@link #DEFAULT_BASE_URL} if not given), and returns it with its canonical start url: scheme
+     * and host lower-cased, query and fragment dropped. Returns {@code null} if it isn't valid.
+     */
+    @Nullable
+    static Session normalize(@NonNull String tokenOrUrl, @Nullable String baseUrl) {
+        String input = tokenOrUrl.trim();
+        int schemeLength = schemeLength(input);
+        if (schemeLength == 0) {
+            if (!isValidToken(input, 0, input.length())) {
+                return null;
+            }
+            if (baseUrl != null && !baseUrl.isEmpty() && authorityEnd(baseUrl, schemeLength(baseUrl)) < 0) {
+                return null;
+            }
+            return new Session(input, startUrl(baseUrl, input));
+        }
+
+        long range = tokenRange(input);
+        if (range < 0) {
+            return null;
+        }
+        int tokenStart = rangeStart(range);
+        int tokenEnd = rangeEnd(range);
+        int authorityEnd = authorityEnd(input, schemeLength);
+        String origin = input.substring(0, authorityEnd);
+        if (!isCanonicalOrigin(origin)) {
+            origin = origin.toLowerCase(Locale.ROOT);
+        }
+        String token = input.substring(tokenStart, tokenEnd);
+        // keeps the prefix segment, only the part after the token is dropped
+        String startUrl = new StringBuilder(origin.length() + tokenStart - authorityEnd + token.length())
+            .append(origin)
+            .append('/')
+            .append(input, authorityEnd + 1, tokenStart - 1)
+            .append('/')
+            .append(token)
+            .toString();
+        return new Session(token, startUrl);
+    }
+
+    /**
+     * Returns the start and end of the token in {@code url} packed into a long, see
+     * {@link #rangeStart(long)} and {@link #rangeEnd(long)}, or -1 if there is no token.
+     */
+    private static long tokenRange(String url) {
+        int start = 0;
+        int end = url.length();
+        // leading and trailing whitespace is ignored, like HttpUrl does
+        while (start < end && url.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && url.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int schemeLength = schemeLength(url, start);
+        if (schemeLength == 0) {
+            return -1;
+        }
+        int authorityEnd = authorityEnd(url, start + schemeLength);
+        if (authorityEnd < 0 || authorityEnd >= end || !isSlash(url.charAt(authorityEnd))) {
+            return -1;
+        }
+        // skip the first path segment, the token is the second one
+        int segmentEnd = segmentEnd(url, authorityEnd + 1, end);
+        if (segmentEnd >= end || !isSlash(url.charAt(segmentEnd))) {
+            return -1;
+        }
+        int tokenStart = segmentEnd + 1;
+        int tokenEnd = segmentEnd(url, tokenStart, end);
+        if (!isValidToken(url, tokenStart, tokenEnd)) {
+            return -1;
+        }
+        return ((long) tokenStart << 32) | tokenEnd;
+    }
+
+    private static int rangeStart(long range) {
+        return (int) (range >>> 32);
+    }
+
+    private static int rangeEnd(long range) {
+        return (int) range;
+    }
+
+    private static int schemeLength(String url) {
+        return schemeLength(url, 0);
+    }
+
+    /**
+     * Returns the length of the {@code http://} or {@code https://} prefix at {@code offset}, 0 if
+     * there is none.
+     */
+    private static int schemeLength(String url, int offset) {
+        if (url.regionMatches(true, offset, HTTPS, 0, HTTPS.length())) {
+            return HTTPS.length();
+        }
+        if (url.regionMatches(true, offset, HTTP, 0, HTTP.length())) {
+            return HTTP.length();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns where the non-empty authority starting at {@code offset} ends, or -1 if it's empty or
+     * has characters a host can't have.
+     */
+    private static int authorityEnd(String url, int offset) {
+        if (offset == 0) {
+            return -1;
+        }
+        int end = offset;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (isSlash(c) || c == '?' || c == '#') {
+                break;
+            }
+            if (c <= ' ') {
+                return -1;
+            }
+            end++;
+        }
+        return end > offset ? end : -1;
+    }
+
+    private static int segmentEnd(String url, int offset, int limit) {
+        int end = offset;
+        while (end < limit) {
+            char c = url.charAt(end);
+            if (isSlash(c) || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Tokens are JWTs or UUIDs, anything that needs escaping in a path segment isn't one.
+     */
+    private static boolean isValidToken(String value, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~' || c == '%';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSlash(char c) {
+        // HttpUrl treats backslashes in http urls like slashes, so does the SDK
+        return c == '/' || c == '\\';
+    }
+
+    private static boolean isCanonicalOrigin(String origin) {
+        for (int i = 0; i < origin.length(); i++) {
+            char c = origin.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,203 @@
+package com.veriff.sdk.reactnative;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.util.TypedValue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.caverock.androidsvg.SVG;
+import com.caverock.androidsvg.SVGParseException;
+import com.facebook.react.modules.network.OkHttpClientProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Rasterizes SVG images and XML drawables (vector drawables, shapes) straight to the size and
+ * density they're shown at, instead of decoding a bitmap made for the largest screen and scaling it
+ * down. Renders are cached by {@link ReactNativeImageProvider} like any decoded image, keyed by
+ * size and density.
+ */
+final class VectorImageRenderer {
+    private static final String RESOURCE_URL_PREFIX = "res:///";
+
+    private static final String SVG_SUFFIX = ".svg";
+
+    /**
+     * Never render larger than this on either side, whatever size the image claims to have. Larger
+     * images are scaled down to fit, keeping their aspect ratio.
+     */
+    private static final int MAX_RENDER_SIZE_PX = 2048;
+
+    private VectorImageRenderer() {
+    }
+
+    /**
+     * Whether {@code url} points at an image this class renders rather than one Fresco decodes.
+     */
+    static boolean canRender(@NonNull String url) {
+        return isResource(url) || isSvg(url);
+    }
+
+    /**
+     * Whether {@code url} points at a drawable of the app, see {@link #resourceUrl(int)}.
+     */
+    static boolean isResource(@NonNull String url) {
+        return url.startsWith(RESOURCE_URL_PREFIX);
+    }
+
+    static boolean isSvg(@NonNull String url) {
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = url.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        return end >= SVG_SUFFIX.length()
+            && url.regionMatches(true, end - SVG_SUFFIX.length(), SVG_SUFFIX, 0, SVG_SUFFIX.length());
+    }
+
+    /**
+     * Returns the url a provider renders the drawable with id {@code drawableId} from. Resource ids
+     * change between builds of the app, so renders of these urls are never cached on disk.
+     */
+    @NonNull
+    static String resourceUrl(int drawableId) {
+        return RESOURCE_URL_PREFIX + drawableId;
+    }
+
+    /**
+     * Whether the drawable with id {@code drawableId} is defined in XML, which is what makes it worth
+     * rendering at the exact size. Only looks the resource up, nothing is inflated.
+     */
+    static boolean isXmlDrawable(@NonNull Context context, int drawableId) {
+        if (drawableId == 0) {
+            return false;
+        }
+        TypedValue value = new TypedValue();
+        context.getResources().getValue(drawableId, value, true);
+        return value.string != null && value.string.toString().toLowerCase(Locale.US).endsWith(".xml");
+    }
+
+    /**
+     * Renders the image at {@code url} to a new bitmap that fits the target size of {@code options},
+     * or is as large as the image says it is at the options' density if there's no target size.
+     */
+    @NonNull
+    @WorkerThread
+    static Bitmap render(@NonNull Context context, @NonNull String url, @NonNull ImageLoadOptions options, long deadline)
+        throws IOException {
+        float density = options.density > 0 ? options.density : context.getResources().getDisplayMetrics().density;
+        if (isResource(url)) {
+            return renderDrawable(context, url, options, density);
+        }
+        SVG svg;
+        try (InputStream in = open(url, options, deadline)) {
+            svg = SVG.getFromInputStream(in);
+        } catch (SVGParseException e) {
+            throw new IOException("Could not parse SVG from " + url, e);
+        }
+        return renderSvg(svg, options, density);
+    }
+
+    private static Bitmap renderSvg(SVG svg, ImageLoadOptions options, float density) throws IOException {
+        RectF viewBox = svg.getDocumentViewBox();
+        float width = svg.getDocumentWidth();
+        float height = svg.getDocumentHeight();
+        if (width <= 0 || height <= 0) {
+            // no absolute size, the view box at least tells the aspect ratio
+            if (viewBox == null) {
+                throw new IOException("SVG has neither a size nor a view box");
+            }
+            width = viewBox.width();
+            height = viewBox.height();
+        } else if (viewBox == null) {
+            // without a view box the document wouldn't scale to the bitmap
+            svg.setDocumentViewBox(0, 0, width, height);
+        }
+        // SVG user units are CSS pixels, which are density independent
+        float scale = options.hasTargetSize() ? options.renderScale(width, height) : density;
+        Bitmap bitmap = createBitmap(width * scale, height * scale, options);
+        svg.renderToCanvas(new Canvas(bitmap), new RectF(0, 0, bitmap.getWidth(), bitmap.getHeight()));
+        return bitmap;
+    }
+
+    private static Bitmap renderDrawable(Context context, String url, ImageLoadOptions options, float density)
+        throws IOException {
+        Drawable drawable;
+        try {
+            drawable = context.getDrawable(Integer.parseInt(url.substring(RESOURCE_URL_PREFIX.length())));
+        } catch (RuntimeException e) {
+            throw new IOException("Could not load drawable " + url, e);
+        }
+        if (drawable == null) {
+            throw new IOException("Could not load drawable " + url);
+        }
+        float width = drawable.getIntrinsicWidth();
+        float height = drawable.getIntrinsicHeight();
+        if (width <= 0 || height <= 0) {
+            if (!options.hasTargetSize()) {
+                throw new IOException("Drawable " + url + " has no size of its own, a width or height is needed");
+            }
+            // shapes and the like fill whatever they're given
+            width = options.targetWidthPx > 0 ? options.targetWidthPx : options.targetHeightPx;
+            height = options.targetHeightPx > 0 ? options.targetHeightPx : options.targetWidthPx;
+        }
+        // intrinsic sizes are for the display, rescale them if the caller asked for another density
+        float scale = options.hasTargetSize()
+            ? options.renderScale(width, height)
+            : density / context.getResources().getDisplayMetrics().density;
+        Bitmap bitmap = createBitmap(width * scale, height * scale, options);
+        drawable.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static Bitmap createBitmap(float width, float height, ImageLoadOptions options) {
+        // shrink both sides alike, clamping them one by one would distort the image
+        float scale = Math.min(1f, Math.min(MAX_RENDER_SIZE_PX / width, MAX_RENDER_SIZE_PX / height));
+        int widthPx = Math.max(1, Math.round(width * scale));
+        int heightPx = Math.max(1, Math.round(height * scale));
+        return Bitmap.createBitmap(widthPx, heightPx, options.bitmapConfig);
+    }
+
+    private static InputStream open(String url, ImageLoadOptions options, long deadline) throws IOException {
+        if (url.startsWith("file://")) {
+            return new FileInputStream(Uri.parse(url).getPath());
+        }
+        long timeoutMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (timeoutMs <= 0) {
+            throw new InterruptedIOException("Timed out loading image from " + url);
+        }
+        // one deadline for the whole call, reading the body included
+        OkHttpClient client = OkHttpClientProvider.getOkHttpClient().newBuilder()
+            .callTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .build();
+        // the same headers and size limit as any other remote branding image
+        try (Response response = client.newCall(HedgedImageFetch.request(url, options)).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Loading SVG from " + url + " got HTTP " + response.code());
+            }
+            return new ByteArrayInputStream(HedgedImageFetch.readBody(body));
+        }
+    }
+}
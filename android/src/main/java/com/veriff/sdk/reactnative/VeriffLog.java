@@ -0,0 +1,306 @@
+package com.veriff.sdk.reactnative;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Level gated logging for the module. Messages are templates with {@code {}} placeholders that are
+ * only filled in when the message is actually written, so disabled levels cost a volatile read.
+ * <p>
+ * Events at or above the buffer level are kept, unformatted, in a fixed-size ring buffer that JS
+ * can dump for support tickets. Only events at or above the logcat level reach logcat. In release
+ * builds that means warnings and errors, and the buffer starts at info, so debug events cost
+ * nothing until JS lowers a level.
+ */
+final class VeriffLog {
+    static final int VERBOSE = Log.VERBOSE;
+    static final int DEBUG = Log.DEBUG;
+    static final int INFO = Log.INFO;
+    static final int WARN = Log.WARN;
+    static final int ERROR = Log.ERROR;
+    static final int NONE = Integer.MAX_VALUE;
+
+    private static final boolean DEBUG_BUILD = BuildConfig.DEBUG;
+
+    /**
+     * Anything below this is dropped whatever the levels are set to: verbose events are only ever
+     * logged or buffered by debug builds of the module.
+     */
+    private static final int MIN_LEVEL = DEBUG_BUILD ? VERBOSE : DEBUG;
+
+    private static final int BUFFER_CAPACITY = 256; // must be a power of two
+    private static final int BUFFER_MASK = BUFFER_CAPACITY - 1;
+
+    private static volatile int logcatLevel = DEBUG_BUILD ? DEBUG : WARN;
+    private static volatile int bufferLevel = DEBUG_BUILD ? VERBOSE : INFO;
+
+    private static final AtomicReferenceArray<Event> buffer = new AtomicReferenceArray<>(BUFFER_CAPACITY);
+    private static final AtomicLong nextSequence = new AtomicLong();
+
+    private VeriffLog() {
+    }
+
+    static void setLevels(int newLogcatLevel, int newBufferLevel) {
+        logcatLevel = newLogcatLevel;
+        bufferLevel = newBufferLevel;
+    }
+
+    static int logcatLevel() {
+        return logcatLevel;
+    }
+
+    static int bufferLevel() {
+        return bufferLevel;
+    }
+
+    /**
+     * Parses a level name as passed from JS, unknown names result in {@code fallback}.
+     */
+    static int parseLevel(@Nullable String name, int fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        switch (name) {
+            case "verbose":
+                return VERBOSE;
+            case "debug":
+                return DEBUG;
+            case "info":
+                return INFO;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            case "none":
+                return NONE;
+            default:
+                return fallback;
+        }
+    }
+
+    static String levelName(int level) {
+        switch (level) {
+            case VERBOSE:
+                return "verbose";
+            case DEBUG:
+                return "debug";
+            case INFO:
+                return "info";
+            case WARN:
+                return "warn";
+            case NONE:
+                return "none";
+            default:
+                return "error";
+        }
+    }
+
+    static boolean isLoggable(int level) {
+        return level >= MIN_LEVEL && (level >= logcatLevel || level >= bufferLevel);
+    }
+
+    static void v(String tag, String message, @Nullable Object arg1) {
+        if (isLoggable(VERBOSE)) {
+            log(VERBOSE, tag, message, arg1, null, null, null, null);
+        }
+    }
+
+    static void v(String tag, String message, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3) {
+        if (isLoggable(VERBOSE)) {
+            log(VERBOSE, tag, message, arg1, arg2, arg3, null, null);
+        }
+    }
+
+    static void d(String tag, String message) {
+        if (isLoggable(DEBUG)) {
+            log(DEBUG, tag, message, null, null, null, null, null);
+        }
+    }
+
+    static void d(String tag, String message, @Nullable Object arg1) {
+        if (isLoggable(DEBUG)) {
+            log(DEBUG, tag, message, arg1, null, null, null, null);
+        }
+    }
+
+    static void d(String tag, String message, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(DEBUG)) {
+            log(DEBUG, tag, message, arg1, arg2, null, null, null);
+        }
+    }
+
+    static void d(String tag, String message, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3) {
+        if (isLoggable(DEBUG)) {
+            log(DEBUG, tag, message, arg1, arg2, arg3, null, null);
+        }
+    }
+
+    static void i(String tag, String message, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3) {
+        if (isLoggable(INFO)) {
+            log(INFO, tag, message, arg1, arg2, arg3, null, null);
+        }
+    }
+
+    static void i(String tag, String message, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
+                  @Nullable Object arg4) {
+        if (isLoggable(INFO)) {
+            log(INFO, tag, message, arg1, arg2, arg3, arg4, null);
+        }
+    }
+
+    static void w(String tag, String message) {
+        if (isLoggable(WARN)) {
+            log(WARN, tag, message, null, null, null, null, null);
+        }
+    }
+
+    static void w(String tag, String message, @Nullable Object arg1) {
+        if (isLoggable(WARN)) {
+            log(WARN, tag, message, arg1, null, null, null, null);
+        }
+    }
+
+    static void w(String tag, String message, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(WARN)) {
+            log(WARN, tag, message, arg1, arg2, null, null, null);
+        }
+    }
+
+    static void w(String tag, String message, @Nullable Throwable error) {
+        if (isLoggable(WARN)) {
+            log(WARN, tag, message, null, null, null, null, error);
+        }
+    }
+
+    static void w(String tag, String message, @Nullable Object arg1, @Nullable Throwable error) {
+        if (isLoggable(WARN)) {
+            log(WARN, tag, message, arg1, null, null, null, error);
+        }
+    }
+
+    static void w(String tag, String message, @Nullable Object arg1, @Nullable Object arg2, @Nullable Throwable error) {
+        if (isLoggable(WARN)) {
+            log(WARN, tag, message, arg1, arg2, null, null, error);
+        }
+    }
+
+    static void e(String tag, String message, @Nullable Throwable error) {
+        if (isLoggable(ERROR)) {
+            log(ERROR, tag, message, null, null, null, null, error);
+        }
+    }
+
+    private static void log(int level, String tag, String message, @Nullable Object arg1, @Nullable Object arg2,
+                            @Nullable Object arg3, @Nullable Object arg4, @Nullable Throwable error) {
+        Object value1 = snapshot(arg1);
+        Object value2 = snapshot(arg2);
+        Object value3 = snapshot(arg3);
+        Object value4 = snapshot(arg4);
+        if (level >= bufferLevel) {
+            long sequence = nextSequence.getAndIncrement();
+            buffer.set((int) (sequence & BUFFER_MASK), new Event(sequence, System.currentTimeMillis(), level, tag,
+                message, value1, value2, value3, value4, error != null ? error.toString() : null));
+        }
+        if (level >= logcatLevel) {
+            String formatted = format(message, value1, value2, value3, value4);
+            if (error != null) {
+                Log.println(level, tag, formatted + '\n' + Log.getStackTraceString(error));
+            } else {
+                Log.println(level, tag, formatted);
+            }
+        }
+    }
+
+    /**
+     * Keeps strings, numbers and booleans as they are and turns anything else into a string right
+     * away, so buffered events don't keep large or mutable objects alive.
+     */
+    @Nullable
+    private static Object snapshot(@Nullable Object arg) {
+        if (arg == null || arg instanceof String || arg instanceof Number || arg instanceof Boolean) {
+            return arg;
+        }
+        return String.valueOf(arg);
+    }
+
+    @NonNull
+    static String format(String message, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
+                         @Nullable Object arg4) {
+        if (message.indexOf('{') < 0) {
+            return message;
+        }
+        StringBuilder builder = new StringBuilder(message.length() + 32);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while ((placeholder = message.indexOf("{}", start)) >= 0) {
+            builder.append(message, start, placeholder);
+            Object arg = argIndex == 0 ? arg1 : argIndex == 1 ? arg2 : argIndex == 2 ? arg3 : argIndex == 3 ? arg4 : "{}";
+            builder.append(arg);
+            argIndex++;
+            start = placeholder + 2;
+        }
+        builder.append(message, start, message.length());
+        return builder.toString();
+    }
+
+    /**
+     * Returns the buffered events, oldest first. Events overwritten while the dump runs are skipped.
+     */
+    @NonNull
+    static List<Event> dump() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - BUFFER_CAPACITY);
+        List<Event> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Event event = buffer.get((int) (sequence & BUFFER_MASK));
+            if (event != null && event.sequence == sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    static final class Event {
+        final long sequence;
+        final long timeMillis;
+        final int level;
+        final String tag;
+        private final String message;
+        private final Object arg1;
+        private final Object arg2;
+        private final Object arg3;
+        private final Object arg4;
+
+        @Nullable
+        final String error;
+
+        private Event(long sequence, long timeMillis, int level, String tag, String message, Object arg1, Object arg2,
+                      Object arg3, Object arg4, @Nullable String error) {
+            this.sequence = sequence;
+            this.timeMillis = timeMillis;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+            this.arg3 = arg3;
+            this.arg4 = arg4;
+            this.error = error;
+        }
+
+        /**
+         * The message with its arguments filled in, formatted on demand.
+         */
+        String message() {
+            return format(message, arg1, arg2, arg3, arg4);
+        }
+    }
+}
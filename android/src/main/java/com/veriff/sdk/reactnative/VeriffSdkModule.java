@@ -1,31 +1,54 @@
 package com.veriff.sdk.reactnative;
 
 import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.Color;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.os.SystemClock;
 import android.text.TextUtils;
-import android.util.Log;
 
+import androidx.annotation.Nullable;
+
+import com.facebook.common.references.CloseableReference;
 import com.facebook.react.bridge.ActivityEventListener;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.BaseActivityEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.module.annotations.ReactModule;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.veriff.VeriffBranding;
 import com.veriff.VeriffConfiguration;
 import com.veriff.VeriffResult;
 import com.veriff.VeriffResult.Status;
 import com.veriff.VeriffSdk;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Locale;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import mobi.lab.veriff.data.VeriffConstants;
 import okhttp3.HttpUrl;
@@ -34,7 +57,8 @@ import static android.app.Activity.RESULT_CANCELED;
 import static com.veriff.VeriffResult.Status.CANCELED;
 import static com.veriff.VeriffResult.Status.ERROR;
 
-public class VeriffSdkModule extends ReactContextBaseJavaModule {
+@ReactModule(name = VeriffSdkModule.JS_NAME)
+public class VeriffSdkModule extends VeriffSdkSpec {
     /**
      * Indicates that the parameters passed to {@link #launchVeriff(ReadableMap, Promise)} were invalid.
      */
@@ -47,58 +71,133 @@ public class VeriffSdkModule extends ReactContextBaseJavaModule {
     private static final String ERROR_ACTIVITY_NOT_ATTACHED = "E_VERIFF_ACTIVITY_NOT_ATTACHED";
 
     /**
-     * The user canceled left the flow before completing it.
+     * Indicates that no result arrived for a launched session within {@link SessionRegistry#DEFAULT_TTL_MS},
+     * or that its flow ended without one and the session was launched again.
+     */
+    private static final String ERROR_SESSION_EXPIRED = "E_VERIFF_SESSION_EXPIRED";
+
+    /**
+     * Indicates that too many calls were queued on the module's executor to take another one.
+     */
+    private static final String ERROR_BUSY = "E_VERIFF_BUSY";
+
+    /**
+     * Emitted with a span for every launch stage, see {@link LaunchTimeline}.
      */
-    private static final String STATUS_CANCELED = "STATUS_CANCELED";
+    private static final String EVENT_TIMELINE = "VeriffSdkTimeline";
 
     /**
-     * The flow was completed, note that this doesn't mean there's a decision yet.
+     * Emitted with what was released whenever the system asks the app to trim its memory.
      */
-    private static final String STATUS_DONE = "STATUS_DONE";
+    private static final String EVENT_MEMORY_TRIM = "VeriffSdkMemoryTrim";
 
     /**
-     * The flow did not complete successfully.
+     * Emitted for every lifecycle step of a launched session, see {@link SessionEvents}.
      */
-    private static final String STATUS_ERROR = "STATUS_ERROR";
+    private static final String EVENT_SESSION = "VeriffSdkSession";
 
-    private static final String DEFAULT_BASE_URL = "https://magic.veriff.me";
     private static final String TAG = "@veriff/react-native-sdk";
-    private static final String JS_NAME = "VeriffSdk";
+    static final String JS_NAME = "VeriffSdk";
+
+    static final int VERIFF_REQUEST_CODE = 47239;
 
-    private static final int VERIFF_REQUEST_CODE = 47239;
+    /**
+     * Packages of the Veriff SDK, the flow moves through several of its activities after the one it
+     * was launched with.
+     */
+    private static final String[] VERIFF_SDK_PACKAGES = {"com.veriff.", "mobi.lab.veriff."};
 
     private static final String KEY_TOKEN = "sessionToken";
     private static final String KEY_BASE_URL = "baseUrl";
     private static final String KEY_SESSION_URL = "sessionUrl";
-    private static final String KEY_BRANDING = "branding";
-    private static final String KEY_LOCALE = "locale";
-    private static final String KEY_STATUS = "status";
+    private static final String KEY_RESOLVE_EARLY = "resolveEarly";
     private static final String KEY_ERROR = "error";
 
-    private static final String KEY_THEME_COLOR = "themeColor";
-    private static final String KEY_LOGO = "logo";
-    private static final String KEY_NAVIGATION_BAR_IMAGE = "navigationBarImage";
-    private static final String KEY_ANDROID_NOTIFICATION_ICON = "androidNotificationIcon";
-    public static final String KEY_BACKGROUND_COLOR = "backgroundColor";
-    public static final String KEY_STATUS_BAR_COLOR = "statusBarColor";
-    public static final String KEY_PRIMARY_TEXT_COLOR = "primaryTextColor";
-    public static final String KEY_SECONDARY_TEXT_COLOR = "secondaryTextColor";
-    public static final String KEY_PRIMARY_BUTTON_BACKGROUND_COLOR = "primaryButtonBackgroundColor";
-    public static final String KEY_BUTTON_CORNER_RADIUS = "buttonCornerRadius";
-    private static final String KEY_CUSTOM_INTRO_SCREEN = "customIntroScreen";
+    public static final String KEY_BACKGROUND_COLOR = ConfigurationBuilder.KEY_BACKGROUND_COLOR;
+    public static final String KEY_STATUS_BAR_COLOR = ConfigurationBuilder.KEY_STATUS_BAR_COLOR;
+    public static final String KEY_PRIMARY_TEXT_COLOR = ConfigurationBuilder.KEY_PRIMARY_TEXT_COLOR;
+    public static final String KEY_SECONDARY_TEXT_COLOR = ConfigurationBuilder.KEY_SECONDARY_TEXT_COLOR;
+    public static final String KEY_PRIMARY_BUTTON_BACKGROUND_COLOR = ConfigurationBuilder.KEY_PRIMARY_BUTTON_BACKGROUND_COLOR;
+    public static final String KEY_BUTTON_CORNER_RADIUS = ConfigurationBuilder.KEY_BUTTON_CORNER_RADIUS;
+    private static final String KEY_CONFIGURATION_NAME = "configurationName";
     private static final String KEY_RN_IMAGE_URI = "uri";
+    private static final String KEY_IMAGE_LOAD_TIMEOUT = "loadTimeout";
+    private static final String KEY_IMAGE_WIDTH = "width";
+    private static final String KEY_IMAGE_HEIGHT = "height";
+    private static final String KEY_IMAGE_DENSITY = "density";
+    private static final String KEY_IMAGE_BITMAP_CONFIG = "bitmapConfig";
+    private static final String KEY_IMAGE_CACHE_TTL = "cacheTtl";
+    private static final String KEY_IMAGE_RETRIES = "retries";
+    private static final String KEY_IMAGE_RETRY_BACKOFF = "retryBackoff";
+    private static final String KEY_IMAGE_HEDGE_PERCENTILE = "hedgePercentile";
+    private static final String KEY_IMAGE_FALLBACK = "fallback";
+    private static final String KEY_IMAGE_HEADERS = "headers";
+
+    private static final String KEY_SESSION_VALID = "valid";
+
+    private static final String KEY_PREFETCH_LOADED = "loaded";
+    private static final String KEY_PREFETCH_FAILED = "failed";
 
-    private static final String ERROR_UNABLE_TO_ACCESS_CAMERA = "UNABLE_TO_ACCESS_CAMERA";
-    private static final String ERROR_UNABLE_TO_RECORD_AUDIO = "UNABLE_TO_RECORD_AUDIO";
-    private static final String ERROR_UNABLE_TO_START_CAMERA = "UNABLE_TO_START_CAMERA";
-    private static final String ERROR_NO_IDENTIFICATION_METHODS_AVAILABLE = "NO_IDENTIFICATION_METHODS_AVAILABLE";
-    private static final String ERROR_UNSUPPORTED_SDK_VERSION = "UNSUPPORTED_SDK_VERSION";
-    private static final String ERROR_SESSION = "SESSION_ERROR";
-    private static final String ERROR_SETUP = "SETUP_ERROR";
-    private static final String ERROR_NETWORK = "NETWORK_ERROR";
-    private static final String ERROR_UNKNOWN = "UNKNOWN_ERROR";
-    private static final String ERROR_NFC_DISABLED = "NFC_DISABLED";
-    private static final String ERROR_DEVICE_HAS_NO_NFC = "DEVICE_HAS_NO_NFC";
+    private static final String KEY_WARM_UP_CLASS_PRELOAD_MS = "classPreloadMs";
+    private static final String KEY_WARM_UP_IMAGE_PIPELINE_MS = "imagePipelineMs";
+    private static final String KEY_WARM_UP_DNS_MS = "dnsMs";
+    private static final String KEY_WARM_UP_TLS_MS = "tlsMs";
+    private static final String KEY_WARM_UP_RESOLVED = "resolved";
+
+    private static final String KEY_SPAN_STAGE = "stage";
+    private static final String KEY_SPAN_START_MS = "startMs";
+    private static final String KEY_SPAN_DURATION_MS = "durationMs";
+
+    private static final String KEY_HISTOGRAM_COUNT = "count";
+    private static final String KEY_HISTOGRAM_MEAN_MS = "meanMs";
+    private static final String KEY_HISTOGRAM_MAX_MS = "maxMs";
+    private static final String KEY_HISTOGRAM_P50_MS = "p50Ms";
+    private static final String KEY_HISTOGRAM_P90_MS = "p90Ms";
+    private static final String KEY_HISTOGRAM_P99_MS = "p99Ms";
+    private static final String KEY_HISTOGRAM_BUCKETS = "buckets";
+    private static final String KEY_HISTOGRAM_BUCKET_LE_MS = "leMs";
+
+    private static final String KEY_TRIM_LEVEL = "level";
+    private static final String KEY_TRIM_IMAGE_CACHE_BYTES_DROPPED = "imageCacheBytesDropped";
+    private static final String KEY_TRIM_IMAGES_EVICTED = "imagesEvicted";
+    private static final String KEY_TRIM_CONFIGURATIONS_DROPPED = "configurationsDropped";
+    private static final String KEY_TRIM_SESSIONS_EXPIRED = "sessionsExpired";
+
+    private static final String KEY_EXECUTOR_QUEUED = "queued";
+    private static final String KEY_EXECUTOR_QUEUE_CAPACITY = "queueCapacity";
+    private static final String KEY_EXECUTOR_ACTIVE = "active";
+    private static final String KEY_EXECUTOR_COMPLETED = "completed";
+    private static final String KEY_EXECUTOR_REJECTED = "rejected";
+
+    private static final String KEY_LOG_TIME = "time";
+    private static final String KEY_LOG_LEVEL = "level";
+    private static final String KEY_LOG_TAG = "tag";
+    private static final String KEY_LOG_MESSAGE = "message";
+    private static final String KEY_LOG_ERROR = "error";
+    private static final String KEY_LOG_LOGCAT = "logcat";
+    private static final String KEY_LOG_BUFFER = "buffer";
+
+    private static final String KEY_CACHE_HITS = "hits";
+    private static final String KEY_CACHE_MISSES = "misses";
+    private static final String KEY_CACHE_EVICTIONS = "evictions";
+    private static final String KEY_CACHE_SIZE_BYTES = "sizeBytes";
+    private static final String KEY_CACHE_MAX_SIZE_BYTES = "maxSizeBytes";
+    private static final String KEY_CACHE_LOADS = "loads";
+    private static final String KEY_CACHE_FAILURES = "failures";
+    private static final String KEY_CACHE_TIMEOUTS = "timeouts";
+    private static final String KEY_CACHE_RETRIES = "retries";
+    private static final String KEY_CACHE_HEDGES = "hedges";
+    private static final String KEY_CACHE_HEDGE_WINS = "hedgeWins";
+    private static final String KEY_CACHE_FALLBACKS = "fallbacks";
+    private static final String KEY_CACHE_VECTOR_RENDERS = "vectorRenders";
+    private static final String KEY_CACHE_DECODED_BYTES = "decodedBytes";
+    private static final String KEY_CACHE_SAVED_BYTES = "savedBytes";
+
+    /**
+     * Launch map keys that describe the launch rather than the configuration.
+     */
+    private static final Set<String> LAUNCH_KEYS = new HashSet<>(Arrays.asList(
+        KEY_TOKEN, KEY_SESSION_URL, KEY_BASE_URL, KEY_RESOLVE_EARLY));
 
     private static final Map<String, Object> EXPORTED_CONSTANTS = new HashMap<>();
 
@@ -106,18 +205,173 @@ public class VeriffSdkModule extends ReactContextBaseJavaModule {
         // promise reject errors
         EXPORTED_CONSTANTS.put("errorInvalidArgs", ERROR_INVALID_ARGS);
         EXPORTED_CONSTANTS.put("errorActivityNotAttached", ERROR_ACTIVITY_NOT_ATTACHED);
+        EXPORTED_CONSTANTS.put("errorSessionExpired", ERROR_SESSION_EXPIRED);
+        EXPORTED_CONSTANTS.put("errorBusy", ERROR_BUSY);
 
         // promise resolve statuses
-        EXPORTED_CONSTANTS.put("statusCanceled", STATUS_CANCELED);
-        EXPORTED_CONSTANTS.put("statusDone", STATUS_DONE);
-        EXPORTED_CONSTANTS.put("statusError", STATUS_ERROR);
+        EXPORTED_CONSTANTS.put("statusCanceled", ResultCodes.STATUS_CANCELED);
+        EXPORTED_CONSTANTS.put("statusDone", ResultCodes.STATUS_DONE);
+        EXPORTED_CONSTANTS.put("statusError", ResultCodes.STATUS_ERROR);
+
+        // events
+        EXPORTED_CONSTANTS.put("eventTimeline", EVENT_TIMELINE);
+        EXPORTED_CONSTANTS.put("eventMemoryTrim", EVENT_MEMORY_TRIM);
+        EXPORTED_CONSTANTS.put("eventSession", EVENT_SESSION);
+
+        // session event types
+        EXPORTED_CONSTANTS.put("sessionEventLaunched", SessionEvents.TYPE_LAUNCHED);
+        EXPORTED_CONSTANTS.put("sessionEventActivityVisible", SessionEvents.TYPE_ACTIVITY_VISIBLE);
+        EXPORTED_CONSTANTS.put("sessionEventResultReceived", SessionEvents.TYPE_RESULT_RECEIVED);
+        EXPORTED_CONSTANTS.put("sessionEventErrorMapped", SessionEvents.TYPE_ERROR_MAPPED);
     }
 
     private final ReactApplicationContext reactContext;
 
+    private final ConfigurationCache configurationCache = new ConfigurationCache();
+
+    final SessionRegistry sessionRegistry = new SessionRegistry();
+
+    private final ModuleExecutor moduleExecutor = new ModuleExecutor();
+
+    /**
+     * Images being prefetched, with everyone waiting for them.
+     */
+    private final Map<BrandingImageCache.Key, List<PrefetchCallback>> prefetching = new HashMap<>();
+
+    /**
+     * Routes Veriff results to the pending session they belong to, one listener for all launches.
+     */
+    private final ActivityEventListener activityEventListener = new BaseActivityEventListener() {
+        @Override
+        public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
+            if (requestCode == VERIFF_REQUEST_CODE) {
+                handleActivityResult(resultCode, data);
+            }
+        }
+    };
+
+    /**
+     * Gives cached bitmaps and configurations back when the system runs low on memory.
+     */
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+
+    /**
+     * Class names of the activities the module has launched the Veriff flow with.
+     */
+    private final Set<String> veriffActivityClasses = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * Veriff activities that are created and not yet destroyed, only changed on the main thread.
+     */
+    private volatile int liveVeriffActivities;
+
+    /**
+     * Notices when the Veriff activity of a pending session comes to the foreground, and when the
+     * last Veriff activity is gone so the branding drawables it showed can be released.
+     */
+    private final Application.ActivityLifecycleCallbacks lifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            if (isVeriffActivity(activity)) {
+                liveVeriffActivities++;
+            }
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            if (sessionRegistry.size() > 0 && isVeriffActivity(activity)) {
+                handleActivityResumed();
+            }
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            if (isVeriffActivity(activity) && --liveVeriffActivities <= 0) {
+                liveVeriffActivities = 0;
+                // a configuration change recreates the activity, which may still show the same drawables
+                if (activity.isFinishing()) {
+                    int released = ReferenceBitmapDrawable.releaseAll();
+                    VeriffLog.d(TAG, "Veriff flow finished, released {} branding drawables", released);
+                }
+            }
+        }
+    };
+
+    /**
+     * Whether {@code activity} is part of a Veriff flow: one the module launched or any other
+     * activity of the Veriff SDK.
+     */
+    private boolean isVeriffActivity(Activity activity) {
+        String className = activity.getClass().getName();
+        if (veriffActivityClasses.contains(className)) {
+            return true;
+        }
+        for (String sdkPackage : VERIFF_SDK_PACKAGES) {
+            if (className.startsWith(sdkPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final AtomicInteger jsListenerCount = new AtomicInteger();
+
+    /**
+     * Forwards launch stage spans to JS, as long as anyone there is listening.
+     */
+    private final LaunchTimeline.Listener timelineListener = (sessionToken, stage, startNanos, durationNanos) -> {
+        if (jsListenerCount.get() <= 0) {
+            return;
+        }
+        WritableMap span = Arguments.createMap();
+        if (sessionToken != null) {
+            span.putString(KEY_TOKEN, sessionToken);
+        }
+        span.putString(KEY_SPAN_STAGE, stage);
+        span.putDouble(KEY_SPAN_START_MS, nanosToMillis(startNanos));
+        span.putDouble(KEY_SPAN_DURATION_MS, nanosToMillis(durationNanos));
+        emit(EVENT_TIMELINE, span);
+    };
+
     public VeriffSdkModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        reactContext.addActivityEventListener(activityEventListener);
+        reactContext.getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+        if (reactContext.getApplicationContext() instanceof Application) {
+            ((Application) reactContext.getApplicationContext()).registerActivityLifecycleCallbacks(lifecycleCallbacks);
+        }
+        LaunchTimeline.setListener(timelineListener);
     }
 
     @Override
@@ -126,25 +380,27 @@ public class VeriffSdkModule extends ReactContextBaseJavaModule {
     }
 
     @Override
-    public Map<String, Object> getConstants() {
+    protected Map<String, Object> getTypedExportedConstants() {
         return EXPORTED_CONSTANTS;
     }
 
     public String extractToken(String startUrl) {
-        // this is suboptimal but it is what it is.. the SDK returns us a token in the
-        // INTENT_EXTRA_SESSION_URL for matching :(
-        HttpUrl url = HttpUrl.parse(startUrl);
-        if (url == null) {
-            return null;
-        }
-        if (url.encodedPathSegments().size() < 2) {
-            return null;
-        }
-        return url.encodedPathSegments().get(1);
+        return SessionUrls.extractToken(startUrl);
     }
 
     @ReactMethod
     public void launchVeriff(ReadableMap configuration, final Promise promise) {
+        if (!moduleExecutor.execute(() -> launch(configuration, promise))) {
+            rejectBusy(promise);
+        }
+    }
+
+    /**
+     * Does the work of {@link #launchVeriff(ReadableMap, Promise)} on the module executor, only
+     * starting the activity hops to the UI thread.
+     */
+    private void launch(ReadableMap configuration, Promise promise) {
+        long stageStart = LaunchTimeline.now();
         try {
             String sessionToken;
             String startUrl;
@@ -167,15 +423,9 @@ public class VeriffSdkModule extends ReactContextBaseJavaModule {
                 if (configuration.hasKey(KEY_BASE_URL)) {
                   baseUrl = configuration.getString(KEY_BASE_URL);
                 }
-                if (TextUtils.isEmpty(baseUrl)) {
-                  baseUrl = DEFAULT_BASE_URL;
-                }
-                if (baseUrl.endsWith("/")) {
-                  baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-                }
-                startUrl = baseUrl + "/v/" + sessionToken;
+                startUrl = SessionUrls.startUrl(baseUrl, sessionToken);
             }
-
+            stageStart = LaunchTimeline.mark(sessionToken, LaunchTimeline.STAGE_PARSE_ARGUMENTS, stageStart);
 
             Activity activity = getCurrentActivity();
             if (activity == null) {
@@ -183,190 +433,837 @@ public class VeriffSdkModule extends ReactContextBaseJavaModule {
                 return;
             }
 
-            ActivityEventListener listener = new BaseActivityEventListener() {
-                @Override
-                public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
-                    if (requestCode == VERIFF_REQUEST_CODE) {
-                        if (data == null) {
-                            return;
-                        }
-                        String token = data.getStringExtra(VeriffConstants.INTENT_EXTRA_SESSION_URL);
-                        if (!sessionToken.equals(token) && !startUrl.equals(token)) {
-                            return;
-                        }
-
-                        reactContext.removeActivityEventListener(this);
-
-                        VeriffResult veriffResult = VeriffResult.fromResultIntent(data);
-                        WritableMap result = Arguments.createMap();
-                        result.putString(KEY_TOKEN, sessionToken);
-
-                        Status status = resultCode == RESULT_CANCELED ? CANCELED : ERROR;
-                        if (veriffResult != null) {
-                          status = veriffResult.getStatus();
-                        }
-                        result.putString(KEY_STATUS, statusToString(status));
-                        if (veriffResult != null && veriffResult.getError() != null){
-                          result.putString(KEY_ERROR, codeToError(veriffResult.getError()));
-                        }
-
-                        promise.resolve(result);
-                    }
+            if (configuration.hasKey(KEY_CONFIGURATION_NAME) && hasInlineConfiguration(configuration)) {
+                promise.reject(ERROR_INVALID_ARGS, "A launch with a configurationName can't also pass "
+                    + "branding, locale or customIntroScreen, register them with the named configuration");
+                return;
+            }
+            VeriffConfiguration veriffConfiguration = compileConfiguration(activity, configuration);
+            if (veriffConfiguration == null) {
+                promise.reject(ERROR_INVALID_ARGS, "No configuration registered with name "
+                    + configuration.getString(KEY_CONFIGURATION_NAME));
+                return;
+            }
+            stageStart = LaunchTimeline.mark(sessionToken, LaunchTimeline.STAGE_BUILD_CONFIGURATION, stageStart);
+
+            boolean resolveEarly = configuration.hasKey(KEY_RESOLVE_EARLY) && configuration.getBoolean(KEY_RESOLVE_EARLY);
+            if (!trackSession(sessionToken, startUrl, promise, resolveEarly)) {
+                return;
+            }
+
+            Intent intent;
+            try {
+                intent = VeriffSdk.createLaunchIntent(activity, startUrl, veriffConfiguration);
+            } catch (Throwable t) {
+                failLaunch(sessionToken, t);
+                return;
+            }
+            long intentCreatedAt = LaunchTimeline.mark(sessionToken, LaunchTimeline.STAGE_CREATE_INTENT, stageStart);
+            UiThreadUtil.runOnUiThread(() -> startActivity(activity, intent, sessionToken, intentCreatedAt));
+
+        } catch (Throwable t) {
+              VeriffLog.e(TAG, "starting verification failed", t);
+              promise.reject(t);
+        }
+    }
+
+    /**
+     * Registers {@code promise} for the session, returns {@code false} if it joined a launch that is
+     * already in flight and there's nothing left to do for it.
+     */
+    boolean trackSession(String sessionToken, String startUrl, Promise promise, boolean resolveEarly) {
+        rejectExpiredSessions();
+        rejectAbandonedSession(sessionToken);
+        boolean launch = sessionRegistry.register(sessionToken, startUrl, promise, SystemClock.elapsedRealtime());
+        SessionRegistry.PendingSession session = sessionRegistry.get(sessionToken);
+        if (resolveEarly && session != null) {
+            // a joining launch asks for the whole session, its promise settles with the others
+            session.resolveEarly = true;
+        }
+        if (!launch) {
+            VeriffLog.w(TAG, "Veriff session is already in flight, waiting for its result");
+        }
+        return launch;
+    }
+
+    /**
+     * Rejects and forgets the session if its Veriff activity was shown and is gone again without a
+     * result having arrived, a result without data for one of several sessions ends up like that.
+     * Nothing is left to join, a new launch has to start the flow again.
+     */
+    private void rejectAbandonedSession(String sessionToken) {
+        SessionRegistry.PendingSession session = sessionRegistry.get(sessionToken);
+        if (session == null || session.visibleAtNanos == 0 || liveVeriffActivities > 0) {
+            // not registered, still launching or its flow is still running
+            return;
+        }
+        if (sessionRegistry.removeIf(session) != null) {
+            VeriffLog.w(TAG, "Relaunching a Veriff session whose flow ended without a result");
+            for (Promise pending : session.promises()) {
+                pending.reject(ERROR_SESSION_EXPIRED, "The Veriff flow ended without a result");
+            }
+        }
+    }
+
+    private void startActivity(Activity activity, Intent intent, String sessionToken, long stageStart) {
+        if (activity != getCurrentActivity() || activity.isFinishing()) {
+            // the activity went away while the launch was being prepared
+            SessionRegistry.PendingSession session = sessionRegistry.remove(sessionToken);
+            if (session != null) {
+                for (Promise pending : session.promises()) {
+                    pending.reject(ERROR_ACTIVITY_NOT_ATTACHED, "Activity detached while launching Veriff");
                 }
-            };
+            }
+            return;
+        }
+        SessionRegistry.PendingSession session = sessionRegistry.get(sessionToken);
+        if (intent.getComponent() != null) {
+            veriffActivityClasses.add(intent.getComponent().getClassName());
+        }
+        try {
+            activity.startActivityForResult(intent, VERIFF_REQUEST_CODE);
+        } catch (Throwable t) {
+            failLaunch(sessionToken, t);
+            return;
+        }
+        long launchedAt = LaunchTimeline.mark(sessionToken, LaunchTimeline.STAGE_START_ACTIVITY, stageStart);
+        if (session != null) {
+            session.launchedAtNanos = launchedAt;
+            emitSessionEvent(sessionEvent(SessionEvents.TYPE_LAUNCHED, session, launchedAt));
+        }
+    }
+
+    private void handleActivityResumed() {
+        SessionRegistry.PendingSession session = sessionRegistry.awaitingActivity();
+        if (session == null) {
+            return;
+        }
+        long visibleAt = LaunchTimeline.now();
+        session.visibleAtNanos = visibleAt;
+        if (session.launchedAtNanos != 0) {
+            LaunchTimeline.record(session.token, LaunchTimeline.STAGE_ACTIVITY_VISIBLE,
+                session.launchedAtNanos, visibleAt - session.launchedAtNanos);
+        }
+        emitSessionEvent(sessionEvent(SessionEvents.TYPE_ACTIVITY_VISIBLE, session, visibleAt));
+    }
+
+    /**
+     * Rejects every promise waiting for a session that couldn't be launched.
+     */
+    private void failLaunch(String sessionToken, Throwable t) {
+        VeriffLog.e(TAG, "starting verification failed", t);
+        SessionRegistry.PendingSession session = sessionRegistry.remove(sessionToken);
+        if (session != null) {
+            for (Promise pending : session.promises()) {
+                pending.reject(t);
+            }
+        }
+    }
 
-            reactContext.addActivityEventListener(listener);
+    private void rejectBusy(Promise promise) {
+        VeriffLog.w(TAG, "Module executor is saturated, rejecting the call");
+        promise.reject(ERROR_BUSY, "Too many Veriff SDK calls in progress, try again later");
+    }
 
-            VeriffConfiguration.Builder configBuilder = new VeriffConfiguration.Builder();
+    private void handleActivityResult(int resultCode, Intent data) {
+        long receivedAt = LaunchTimeline.now();
+        SessionRegistry.PendingSession session;
+        VeriffResult veriffResult = null;
+        if (data == null) {
+            // without data there's nothing to match on, but if only one flow is running this is its end
+            session = sessionRegistry.single();
+            if (session == null || sessionRegistry.remove(session.token) == null) {
+                VeriffLog.w(TAG, "Got a Veriff result without data, ignoring it");
+                return;
+            }
+        } else {
+            String token = data.getStringExtra(VeriffConstants.INTENT_EXTRA_SESSION_URL);
+            if (TextUtils.isEmpty(token)) {
+                return;
+            }
+            session = sessionRegistry.remove(token);
+            if (session == null) {
+                // the SDK hands back either the token or the whole session url
+                String extracted = extractToken(token);
+                session = extracted != null ? sessionRegistry.remove(extracted) : null;
+            }
+            if (session == null) {
+                return;
+            }
+            veriffResult = VeriffResult.fromResultIntent(data);
+        }
 
-            if (configuration.hasKey(KEY_CUSTOM_INTRO_SCREEN)) {
-                configBuilder.customIntroScreen(configuration.getBoolean(KEY_CUSTOM_INTRO_SCREEN));
+        Status status = resultCode == RESULT_CANCELED ? CANCELED : ERROR;
+        if (veriffResult != null) {
+            status = veriffResult.getStatus();
+        }
+        String error = veriffResult != null && veriffResult.getError() != null
+            ? ResultCodes.codeToError(veriffResult.getError())
+            : null;
+
+        if (session.resolveEarly) {
+            resolve(session, status, error);
+        }
+
+        WritableMap received = sessionEvent(SessionEvents.TYPE_RESULT_RECEIVED, session, receivedAt);
+        if (received != null) {
+            SessionEvents.writeResultReceived(received, resultCode, status);
+            emitSessionEvent(received);
+        }
+        if (error != null) {
+            WritableMap mapped = sessionEvent(SessionEvents.TYPE_ERROR_MAPPED, session, receivedAt);
+            if (mapped != null) {
+                SessionEvents.writeErrorMapped(mapped, veriffResult.getError(), error);
+                emitSessionEvent(mapped);
             }
+        }
+        if (session.launchedAtNanos != 0) {
+            LaunchTimeline.record(session.token, LaunchTimeline.STAGE_ACTIVITY_RESULT,
+                session.launchedAtNanos, receivedAt - session.launchedAtNanos);
+        }
 
-            if (configuration.hasKey(KEY_BRANDING)) {
-                ReadableMap brandConfig = configuration.getMap(KEY_BRANDING);
-                if (brandConfig != null) {
-                    VeriffBranding.Builder branding = new VeriffBranding.Builder();
-                    if (brandConfig.hasKey(KEY_THEME_COLOR)) {
-                        branding.themeColor(parseColor(brandConfig.getString(KEY_THEME_COLOR)));
-                    }
-                    if (brandConfig.hasKey(KEY_NAVIGATION_BAR_IMAGE)) {
-                        handleLogo(activity, KEY_NAVIGATION_BAR_IMAGE, branding, brandConfig);
-                    }
-                    if (brandConfig.hasKey(KEY_LOGO)) {
-                        handleLogo(activity, KEY_LOGO, branding, brandConfig);
-                    }
-                    if (brandConfig.hasKey(KEY_ANDROID_NOTIFICATION_ICON)) {
-                        branding.notificationIcon(getDrawableId(activity, brandConfig.getString(KEY_ANDROID_NOTIFICATION_ICON)));
-                    }
-                    if (brandConfig.hasKey(KEY_BACKGROUND_COLOR)) {
-                        branding.backgroundColor(parseColor(brandConfig.getString(KEY_BACKGROUND_COLOR)));
-                    }
-                    if (brandConfig.hasKey(KEY_STATUS_BAR_COLOR)) {
-                        branding.statusBarColor(parseColor(brandConfig.getString(KEY_STATUS_BAR_COLOR)));
-                    }
-                    if (brandConfig.hasKey(KEY_PRIMARY_TEXT_COLOR)) {
-                        branding.primaryTextColor(parseColor(brandConfig.getString(KEY_PRIMARY_TEXT_COLOR)));
-                    }
-                    if (brandConfig.hasKey(KEY_SECONDARY_TEXT_COLOR)) {
-                        branding.secondaryTextColor(parseColor(brandConfig.getString(KEY_SECONDARY_TEXT_COLOR)));
-                    }
-                    if (brandConfig.hasKey(KEY_PRIMARY_BUTTON_BACKGROUND_COLOR)) {
-                        branding.primaryButtonBackgroundColor(parseColor(brandConfig.getString(KEY_PRIMARY_BUTTON_BACKGROUND_COLOR)));
-                    }
-                    if (brandConfig.hasKey(KEY_BUTTON_CORNER_RADIUS)) {
-                        branding.buttonCornerRadius((float)brandConfig.getDouble(KEY_BUTTON_CORNER_RADIUS));
+        if (!session.resolveEarly) {
+            resolve(session, status, error);
+        }
+        LaunchTimeline.mark(session.token, LaunchTimeline.STAGE_RESOLVE, receivedAt);
+        rejectExpiredSessions();
+    }
+
+    private static void resolve(SessionRegistry.PendingSession session, Status status, @Nullable String error) {
+        for (Promise promise : session.promises()) {
+            // a map can only be handed to JS once, every promise gets its own
+            WritableMap result = Arguments.createMap();
+            ResultCodes.writeResult(result, session.token, status, error);
+            promise.resolve(result);
+        }
+    }
+
+    /**
+     * Returns a new event of {@code type} for {@code session}, {@code null} if nobody in JS is
+     * listening and there's no point in building one.
+     */
+    @Nullable
+    private WritableMap sessionEvent(String type, SessionRegistry.PendingSession session, long nowNanos) {
+        if (jsListenerCount.get() <= 0) {
+            return null;
+        }
+        WritableMap event = Arguments.createMap();
+        SessionEvents.write(event, type, session.token, System.currentTimeMillis(), session.launchedAtNanos, nowNanos);
+        return event;
+    }
+
+    private void emitSessionEvent(@Nullable WritableMap event) {
+        if (event != null) {
+            emit(EVENT_SESSION, event);
+        }
+    }
+
+    /**
+     * Rejects and forgets the sessions that outlived their TTL, returns how many there were.
+     */
+    private int rejectExpiredSessions() {
+        List<SessionRegistry.PendingSession> expired = sessionRegistry.expire(SystemClock.elapsedRealtime());
+        for (SessionRegistry.PendingSession session : expired) {
+            VeriffLog.w(TAG, "Giving up on a Veriff session that never returned a result");
+            for (Promise promise : session.promises()) {
+                promise.reject(ERROR_SESSION_EXPIRED, "No result for the Veriff session within "
+                    + TimeUnit.MILLISECONDS.toMinutes(SessionRegistry.DEFAULT_TTL_MS) + " minutes");
+            }
+        }
+        return expired.size();
+    }
+
+    private void trimMemory(int level) {
+        MemoryPressure.Report report = MemoryPressure.trim(level, BrandingImageCache.getInstance(), configurationCache);
+        if (report.tier == MemoryPressure.TIER_NONE) {
+            return;
+        }
+        if (report.tier >= MemoryPressure.TIER_LOW) {
+            report.sessionsExpired = rejectExpiredSessions();
+        }
+        VeriffLog.i(TAG, "Trimmed memory at level {}: {} cached images, {} configurations, {} expired sessions", level,
+            report.imagesEvicted, report.configurationsDropped, report.sessionsExpired);
+
+        WritableMap event = Arguments.createMap();
+        event.putInt(KEY_TRIM_LEVEL, report.level);
+        event.putDouble(KEY_TRIM_IMAGE_CACHE_BYTES_DROPPED, report.imageCacheBytesDropped);
+        event.putInt(KEY_TRIM_IMAGES_EVICTED, report.imagesEvicted);
+        event.putInt(KEY_TRIM_CONFIGURATIONS_DROPPED, report.configurationsDropped);
+        event.putInt(KEY_TRIM_SESSIONS_EXPIRED, report.sessionsExpired);
+        emit(EVENT_MEMORY_TRIM, event);
+    }
+
+    /**
+     * Validates many sessions in one call. Every entry is a session url, a bare session token or a
+     * map with {@code sessionUrl} or {@code sessionToken} and optional {@code baseUrl}, like the ones
+     * passed to {@link #launchVeriff(ReadableMap, Promise)}. Resolves with one result per entry, in
+     * order: {@code valid}, and either the {@code sessionToken} and canonical {@code sessionUrl} to
+     * launch with, or an {@code error}.
+     */
+    @ReactMethod
+    public void validateSessions(ReadableArray sessions, final Promise promise) {
+        if (sessions == null) {
+            promise.reject(ERROR_INVALID_ARGS, "No sessions to validate");
+            return;
+        }
+        boolean queued = moduleExecutor.execute(() -> {
+            try {
+                promise.resolve(validate(sessions));
+            } catch (Throwable t) {
+                VeriffLog.e(TAG, "validating sessions failed", t);
+                promise.reject(ERROR_INVALID_ARGS, "Could not validate sessions: " + t.getMessage(), t);
+            }
+        });
+        if (!queued) {
+            rejectBusy(promise);
+        }
+    }
+
+    private static WritableArray validate(ReadableArray sessions) {
+        WritableArray results = Arguments.createArray();
+        for (int i = 0; i < sessions.size(); i++) {
+            String input = null;
+            String baseUrl = null;
+            String error = null;
+            ReadableType type = sessions.getType(i);
+            if (ReadableType.String.equals(type)) {
+                input = sessions.getString(i);
+            } else if (ReadableType.Map.equals(type)) {
+                ReadableMap session = sessions.getMap(i);
+                if (session != null && session.hasKey(KEY_SESSION_URL) && !session.isNull(KEY_SESSION_URL)) {
+                    input = optionalString(session, KEY_SESSION_URL);
+                    error = input == null ? KEY_SESSION_URL + " is not a string" : null;
+                } else if (session != null && session.hasKey(KEY_TOKEN) && !session.isNull(KEY_TOKEN)) {
+                    input = optionalString(session, KEY_TOKEN);
+                    baseUrl = optionalString(session, KEY_BASE_URL);
+                    if (input == null) {
+                        error = KEY_TOKEN + " is not a string";
+                    } else if (baseUrl == null && session.hasKey(KEY_BASE_URL) && !session.isNull(KEY_BASE_URL)) {
+                        error = KEY_BASE_URL + " is not a string";
                     }
-                    configBuilder.branding(branding.build());
                 }
+            } else if (!ReadableType.Null.equals(type)) {
+                error = "Not a session url, token or map";
             }
 
-            if (configuration.hasKey(KEY_LOCALE)) {
-                configBuilder.locale(Locale.forLanguageTag(configuration.getString(KEY_LOCALE)));
+            WritableMap result = Arguments.createMap();
+            SessionUrls.Session normalized = error != null || TextUtils.isEmpty(input) ? null : SessionUrls.normalize(input, baseUrl);
+            result.putBoolean(KEY_SESSION_VALID, normalized != null);
+            if (normalized != null) {
+                result.putString(KEY_TOKEN, normalized.token);
+                result.putString(KEY_SESSION_URL, normalized.startUrl);
+            } else if (error != null) {
+                result.putString(KEY_ERROR, error);
+            } else if (TextUtils.isEmpty(input)) {
+                result.putString(KEY_ERROR, "No session url or token");
+            } else {
+                result.putString(KEY_ERROR, "Invalid session " + input);
             }
+            results.pushMap(result);
+        }
+        return results;
+    }
 
-            Intent intent = VeriffSdk.createLaunchIntent(activity, startUrl, configBuilder.build());
-            activity.startActivityForResult(intent, VERIFF_REQUEST_CODE);
+    /**
+     * Returns the string under {@code key}, {@code null} if it is missing or not a string.
+     */
+    @Nullable
+    private static String optionalString(ReadableMap map, String key) {
+        return map.hasKey(key) && ReadableType.String.equals(map.getType(key)) ? map.getString(key) : null;
+    }
 
-        } catch (Throwable t) {
-              Log.e(TAG, "starting verification failed", t);
-              promise.reject(t);
+    /**
+     * Resolves with the depth and counters of the executor the module's calls run on. How long
+     * calls waited and ran is part of {@link #getLatencyHistograms(Promise)}.
+     */
+    @ReactMethod
+    public void getExecutorStats(final Promise promise) {
+        WritableMap stats = Arguments.createMap();
+        stats.putInt(KEY_EXECUTOR_QUEUED, moduleExecutor.queuedCount());
+        stats.putInt(KEY_EXECUTOR_QUEUE_CAPACITY, moduleExecutor.queueCapacity());
+        stats.putInt(KEY_EXECUTOR_ACTIVE, moduleExecutor.activeCount());
+        stats.putDouble(KEY_EXECUTOR_COMPLETED, moduleExecutor.completedCount());
+        stats.putDouble(KEY_EXECUTOR_REJECTED, moduleExecutor.rejectedCount());
+        promise.resolve(stats);
+    }
+
+    /**
+     * Resolves with the module's buffered log events, oldest first. Messages are only formatted here,
+     * logging them cost no more than storing their arguments.
+     */
+    @ReactMethod
+    public void dumpLogs(final Promise promise) {
+        WritableArray events = Arguments.createArray();
+        for (VeriffLog.Event event : VeriffLog.dump()) {
+            WritableMap entry = Arguments.createMap();
+            entry.putDouble(KEY_LOG_TIME, event.timeMillis);
+            entry.putString(KEY_LOG_LEVEL, VeriffLog.levelName(event.level));
+            entry.putString(KEY_LOG_TAG, event.tag);
+            entry.putString(KEY_LOG_MESSAGE, event.message());
+            if (event.error != null) {
+                entry.putString(KEY_LOG_ERROR, event.error);
+            }
+            events.pushMap(entry);
+        }
+        promise.resolve(events);
+    }
+
+    /**
+     * Sets the lowest level that reaches logcat and the lowest level kept in the buffer, each one of
+     * verbose, debug, info, warn, error or none. Missing or unknown levels are left as they are.
+     */
+    @ReactMethod
+    public void setLogLevel(ReadableMap levels) {
+        if (levels == null) {
+            return;
+        }
+        String logcat = optionalString(levels, KEY_LOG_LOGCAT);
+        String buffer = optionalString(levels, KEY_LOG_BUFFER);
+        VeriffLog.setLevels(VeriffLog.parseLevel(logcat, VeriffLog.logcatLevel()),
+            VeriffLog.parseLevel(buffer, VeriffLog.bufferLevel()));
+    }
+
+    /**
+     * Resolves with the number of launched sessions still waiting for their result.
+     */
+    @ReactMethod
+    public void getPendingSessionCount(final Promise promise) {
+        rejectExpiredSessions();
+        promise.resolve(sessionRegistry.size());
+    }
+
+    /**
+     * Resolves with the latency histogram of every launch stage recorded so far, keyed by stage.
+     */
+    @ReactMethod
+    public void getLatencyHistograms(final Promise promise) {
+        WritableMap result = Arguments.createMap();
+        for (Map.Entry<String, LatencyHistogram> entry : LaunchTimeline.histograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            WritableMap stage = Arguments.createMap();
+            stage.putDouble(KEY_HISTOGRAM_COUNT, histogram.count());
+            stage.putDouble(KEY_HISTOGRAM_MEAN_MS, histogram.meanMillis());
+            stage.putDouble(KEY_HISTOGRAM_MAX_MS, histogram.maxMillis());
+            stage.putDouble(KEY_HISTOGRAM_P50_MS, histogram.percentileMillis(50));
+            stage.putDouble(KEY_HISTOGRAM_P90_MS, histogram.percentileMillis(90));
+            stage.putDouble(KEY_HISTOGRAM_P99_MS, histogram.percentileMillis(99));
+            WritableArray buckets = Arguments.createArray();
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                WritableMap bucket = Arguments.createMap();
+                long upperBound = LatencyHistogram.bucketUpperBoundMillis(i);
+                if (upperBound == Long.MAX_VALUE) {
+                    bucket.putNull(KEY_HISTOGRAM_BUCKET_LE_MS); // overflow
+                } else {
+                    bucket.putDouble(KEY_HISTOGRAM_BUCKET_LE_MS, upperBound);
+                }
+                bucket.putDouble(KEY_HISTOGRAM_COUNT, histogram.bucketCount(i));
+                buckets.pushMap(bucket);
+            }
+            stage.putArray(KEY_HISTOGRAM_BUCKETS, buckets);
+            result.putMap(entry.getKey(), stage);
+        }
+        promise.resolve(result);
+    }
+
+    /**
+     * Called by {@code NativeEventEmitter} when JS subscribes to one of the module's events.
+     */
+    @ReactMethod
+    public void addListener(String eventName) {
+        jsListenerCount.incrementAndGet();
+    }
+
+    /**
+     * Called by {@code NativeEventEmitter} when JS unsubscribes from the module's events.
+     */
+    @ReactMethod
+    public void removeListeners(double count) {
+        jsListenerCount.addAndGet(-(int) count);
+    }
+
+    private void emit(String eventName, WritableMap payload) {
+        if (jsListenerCount.get() > 0 && reactContext.hasActiveCatalystInstance()) {
+            reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, payload);
+        }
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        reactContext.removeActivityEventListener(activityEventListener);
+        reactContext.getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+        if (reactContext.getApplicationContext() instanceof Application) {
+            ((Application) reactContext.getApplicationContext()).unregisterActivityLifecycleCallbacks(lifecycleCallbacks);
         }
+        LaunchTimeline.clearListener(timelineListener);
+        moduleExecutor.shutdown();
+    }
+
+    /**
+     * Registers a configuration under {@code name}, so later launches can pass just
+     * {@code configurationName} together with their session instead of the whole configuration.
+     */
+    @ReactMethod
+    public void registerConfiguration(String name, ReadableMap configuration, final Promise promise) {
+        if (TextUtils.isEmpty(name)) {
+            promise.reject(ERROR_INVALID_ARGS, "No name for the Veriff SDK configuration");
+            return;
+        }
+        boolean queued = moduleExecutor.execute(() -> {
+            try {
+                configurationCache.putNamed(name, buildConfiguration(reactContext, configuration));
+                promise.resolve(null);
+            } catch (Throwable t) {
+                VeriffLog.e(TAG, "registering configuration failed", t);
+                promise.reject(t);
+            }
+        });
+        if (!queued) {
+            rejectBusy(promise);
+        }
+    }
+
+    /**
+     * Returns the named configuration if the launch asks for one, otherwise the cached
+     * configuration built from the same content or a freshly built one. {@code null} means the
+     * requested name isn't registered.
+     */
+    @Nullable
+    private VeriffConfiguration compileConfiguration(Context context, ReadableMap configuration) {
+        if (configuration.hasKey(KEY_CONFIGURATION_NAME)) {
+            String name = configuration.getString(KEY_CONFIGURATION_NAME);
+            return name != null ? configurationCache.getNamed(name) : null;
+        }
+
+        // the session doesn't end up in VeriffConfiguration, so it mustn't be part of the key
+        long contentKey = ConfigurationCache.contentKey(configuration, LAUNCH_KEYS);
+        VeriffConfiguration compiled = configurationCache.get(contentKey);
+        if (compiled == null) {
+            compiled = buildConfiguration(context, configuration);
+            configurationCache.put(contentKey, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Whether a launch map carries any configuration of its own besides the session, which a
+     * named configuration can't be combined with.
+     */
+    private static boolean hasInlineConfiguration(ReadableMap configuration) {
+        return configuration.hasKey(ConfigurationBuilder.KEY_BRANDING)
+            || configuration.hasKey(ConfigurationBuilder.KEY_LOCALE)
+            || configuration.hasKey(ConfigurationBuilder.KEY_CUSTOM_INTRO_SCREEN);
+    }
+
+    private VeriffConfiguration buildConfiguration(Context context, ReadableMap configuration) {
+        return new ConfigurationBuilder(new ConfigurationBuilder.Images() {
+            @Override
+            public void toolbarIcon(String key, VeriffBranding.Builder branding, ReadableMap brandConfig) {
+                handleLogo(context, key, branding, brandConfig);
+            }
+
+            @Override
+            public int drawableId(String name) {
+                return DrawableResolver.getDrawableId(context, name);
+            }
+        }).build(configuration);
+    }
+
+    /**
+     * Fetches and decodes the remote images of a branding map (the same one passed to
+     * {@link #launchVeriff(ReadableMap, Promise)}) into the shared image cache, so the Veriff flow
+     * finds them there instead of loading them on the first screen. Resolves once every image has
+     * either been cached or failed.
+     */
+    @ReactMethod
+    public void prefetchBranding(ReadableMap brandConfig, final Promise promise) {
+        List<ReactNativeImageProvider> providers = new ArrayList<>();
+        for (String key : new String[]{ConfigurationBuilder.KEY_NAVIGATION_BAR_IMAGE, ConfigurationBuilder.KEY_LOGO}) {
+            ReactNativeImageProvider provider = asyncImageProvider(reactContext, key, brandConfig);
+            if (provider != null) {
+                providers.add(provider);
+            }
+        }
+        if (providers.isEmpty()) {
+            promise.resolve(prefetchResult(0, 0));
+            return;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(providers.size());
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        for (ReactNativeImageProvider provider : providers) {
+            prefetch(provider, success -> {
+                (success ? loaded : failed).incrementAndGet();
+                if (remaining.decrementAndGet() == 0) {
+                    promise.resolve(prefetchResult(loaded.get(), failed.get()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Called once the image a prefetch asked for has been cached or failed.
+     */
+    private interface PrefetchCallback {
+        void onPrefetched(boolean success);
+    }
+
+    /**
+     * Loads the provider's image into the caches on a background thread. Prefetches of an image
+     * that is already being prefetched wait for that one instead of loading it again.
+     */
+    private void prefetch(ReactNativeImageProvider provider, PrefetchCallback callback) {
+        BrandingImageCache.Key key = provider.cacheKey();
+        synchronized (prefetching) {
+            List<PrefetchCallback> waiting = prefetching.get(key);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            prefetching.put(key, waiting);
+        }
+        BackgroundExecutor.INSTANCE.execute(() -> {
+            boolean success = false;
+            CloseableReference<Bitmap> bitmapReference = null;
+            try {
+                // only the caches are of interest, the reference itself is dropped right away
+                bitmapReference = provider.loadBitmap(reactContext);
+                success = true;
+            } catch (Throwable t) {
+                VeriffLog.w(TAG, "prefetching branding image failed", t);
+            } finally {
+                CloseableReference.closeSafely(bitmapReference);
+            }
+            List<PrefetchCallback> waiting;
+            synchronized (prefetching) {
+                waiting = prefetching.remove(key);
+            }
+            for (PrefetchCallback waiter : waiting) {
+                waiter.onPrefetched(success);
+            }
+        });
+    }
+
+    private static WritableMap prefetchResult(int loaded, int failed) {
+        WritableMap result = Arguments.createMap();
+        result.putInt(KEY_PREFETCH_LOADED, loaded);
+        result.putInt(KEY_PREFETCH_FAILED, failed);
+        return result;
+    }
+
+    /**
+     * Loads the SDK classes, warms the image pipeline, the DNS cache for the Veriff backend
+     * ({@code baseUrl} or {@code sessionUrl} from {@code options}, the default backend otherwise)
+     * and the TLS provider on a background thread. Resolves with how long each stage took, in milliseconds.
+     */
+    @ReactMethod
+    public void warmUp(@Nullable ReadableMap options, final Promise promise) {
+        String url = null;
+        if (options != null && options.hasKey(KEY_BASE_URL)) {
+            url = options.getString(KEY_BASE_URL);
+        }
+        if (TextUtils.isEmpty(url) && options != null && options.hasKey(KEY_SESSION_URL)) {
+            url = options.getString(KEY_SESSION_URL);
+        }
+        if (TextUtils.isEmpty(url)) {
+            url = SessionUrls.DEFAULT_BASE_URL;
+        }
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) {
+            promise.reject(ERROR_INVALID_ARGS, "Invalid url " + url);
+            return;
+        }
+        HttpUrl baseUrl = parsed.resolve("/");
+
+        BackgroundExecutor.INSTANCE.execute(() -> {
+            try {
+                WarmUp.Timings timings = new WarmUp().run(reactContext, baseUrl);
+                WritableMap result = Arguments.createMap();
+                result.putDouble(KEY_WARM_UP_CLASS_PRELOAD_MS, nanosToMillis(timings.classPreloadNanos));
+                result.putDouble(KEY_WARM_UP_IMAGE_PIPELINE_MS, nanosToMillis(timings.imagePipelineNanos));
+                result.putDouble(KEY_WARM_UP_DNS_MS, nanosToMillis(timings.dnsNanos));
+                result.putDouble(KEY_WARM_UP_TLS_MS, nanosToMillis(timings.tlsNanos));
+                result.putBoolean(KEY_WARM_UP_RESOLVED, timings.resolved);
+                if (timings.error != null) {
+                    result.putString(KEY_ERROR, timings.error);
+                }
+                promise.resolve(result);
+            } catch (Throwable t) {
+                VeriffLog.e(TAG, "warming up failed", t);
+                promise.reject(t);
+            }
+        });
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Resolves with the counters of the shared branding image cache and of the image loads behind it.
+     */
+    @ReactMethod
+    public void getImageCacheStats(final Promise promise) {
+        BrandingImageCache cache = BrandingImageCache.getInstance();
+        WritableMap stats = Arguments.createMap();
+        stats.putInt(KEY_CACHE_HITS, cache.hitCount());
+        stats.putInt(KEY_CACHE_MISSES, cache.missCount());
+        stats.putInt(KEY_CACHE_EVICTIONS, cache.evictionCount());
+        stats.putInt(KEY_CACHE_SIZE_BYTES, cache.sizeBytes());
+        stats.putInt(KEY_CACHE_MAX_SIZE_BYTES, cache.maxSizeBytes());
+        stats.putDouble(KEY_CACHE_LOADS, ImageLoadMetrics.loadCount());
+        stats.putDouble(KEY_CACHE_FAILURES, ImageLoadMetrics.failureCount());
+        stats.putDouble(KEY_CACHE_TIMEOUTS, ImageLoadMetrics.timeoutCount());
+        stats.putDouble(KEY_CACHE_RETRIES, ImageLoadMetrics.retryCount());
+        stats.putDouble(KEY_CACHE_HEDGES, ImageLoadMetrics.hedgeCount());
+        stats.putDouble(KEY_CACHE_HEDGE_WINS, ImageLoadMetrics.hedgeWinCount());
+        stats.putDouble(KEY_CACHE_FALLBACKS, ImageLoadMetrics.fallbackCount());
+        stats.putDouble(KEY_CACHE_VECTOR_RENDERS, ImageLoadMetrics.vectorRenderCount());
+        stats.putDouble(KEY_CACHE_DECODED_BYTES, ImageLoadMetrics.decodedBytes());
+        stats.putDouble(KEY_CACHE_SAVED_BYTES, ImageLoadMetrics.savedBytes());
+        promise.resolve(stats);
     }
 
     private void handleLogo(Context context, String key, VeriffBranding.Builder branding, ReadableMap brandConfig) {
         ReadableType type = brandConfig.getType(key);
         if (ReadableType.String.equals(type)) {
-            branding.toolbarIcon(getDrawableId(context, brandConfig.getString(key)));
+            branding.toolbarIcon(DrawableResolver.getDrawableId(context, brandConfig.getString(key)));
         } else if (ReadableType.Map.equals(type)) {
             // check if it's a native RN image
             ReadableMap image = brandConfig.getMap(key);
-            if (image != null) {
-                if (image.hasKey(KEY_RN_IMAGE_URI)) {
-                    String url = image.getString(KEY_RN_IMAGE_URI);
-                    if (!TextUtils.isEmpty(url)) {
-                        // check if url has an async scheme
-                        if (isAsyncLogoUrl(url)) {
-                            branding.toolbarIconProvider(new ReactNativeImageProvider(url));
-                        } else {
-                            branding.toolbarIcon(getDrawableId(context, url));
-                        }
-                    } else {
-                        Log.w(TAG, "Image url is empty: " + url);
-                    }
+            String url = imageUrl(image);
+            if (url != null) {
+                ReactNativeImageProvider provider = imageProvider(context, image, url);
+                if (provider != null) {
+                    branding.toolbarIconProvider(provider);
                 } else {
-                    Log.w(TAG, "Provided image does not have " + KEY_RN_IMAGE_URI + " key. Keys: ");
-                    for (String imageKey : image.toHashMap().keySet()) {
-                        Log.w(TAG, imageKey);
-                    }
+                    branding.toolbarIcon(DrawableResolver.getDrawableId(context, url));
                 }
-            } else {
-                Log.w(TAG, "Provided image is null");
             }
         } else {
-          Log.w(TAG, "Unexpected image type: " + type);
+          VeriffLog.w(TAG, "Unexpected image type: {}", type);
+        }
+    }
+
+    /**
+     * Returns the url of an RN image map, {@code null} if there is no map or it has no url.
+     */
+    @Nullable
+    private static String imageUrl(@Nullable ReadableMap image) {
+        if (image == null) {
+            VeriffLog.w(TAG, "Provided image is null");
+            return null;
+        }
+        if (!image.hasKey(KEY_RN_IMAGE_URI)) {
+            if (VeriffLog.isLoggable(VeriffLog.WARN)) {
+                VeriffLog.w(TAG, "Provided image does not have {} key, keys: {}", KEY_RN_IMAGE_URI,
+                    image.toHashMap().keySet());
+            }
+            return null;
+        }
+        String url = image.getString(KEY_RN_IMAGE_URI);
+        if (TextUtils.isEmpty(url)) {
+            VeriffLog.w(TAG, "Image url is empty");
+            return null;
+        }
+        return url;
+    }
+
+    /**
+     * Reads the optional load timeout, target size (in dp, like RN image sources), density, bitmap
+     * config, disk cache TTL, retry and hedging policy, fallback drawable and request headers from
+     * an image map.
+     */
+    private static ImageLoadOptions imageLoadOptions(Context context, ReadableMap image) {
+        long loadTimeoutMs = image.hasKey(KEY_IMAGE_LOAD_TIMEOUT)
+            ? (long) image.getDouble(KEY_IMAGE_LOAD_TIMEOUT)
+            : ReactNativeImageProvider.DEFAULT_LOAD_TIMEOUT_MS;
+        double width = image.hasKey(KEY_IMAGE_WIDTH) ? image.getDouble(KEY_IMAGE_WIDTH) : 0;
+        double height = image.hasKey(KEY_IMAGE_HEIGHT) ? image.getDouble(KEY_IMAGE_HEIGHT) : 0;
+        float density = image.hasKey(KEY_IMAGE_DENSITY)
+            ? (float) image.getDouble(KEY_IMAGE_DENSITY)
+            : context.getResources().getDisplayMetrics().density;
+        Bitmap.Config bitmapConfig = image.hasKey(KEY_IMAGE_BITMAP_CONFIG)
+            ? ImageLoadOptions.parseBitmapConfig(image.getString(KEY_IMAGE_BITMAP_CONFIG))
+            : null;
+        long diskCacheTtlMs = image.hasKey(KEY_IMAGE_CACHE_TTL)
+            ? (long) image.getDouble(KEY_IMAGE_CACHE_TTL)
+            : DecodedImageDiskCache.DEFAULT_TTL_MS;
+        int maxRetries = image.hasKey(KEY_IMAGE_RETRIES)
+            ? image.getInt(KEY_IMAGE_RETRIES)
+            : ImageLoadOptions.DEFAULT_MAX_RETRIES;
+        long retryBackoffMs = image.hasKey(KEY_IMAGE_RETRY_BACKOFF)
+            ? (long) image.getDouble(KEY_IMAGE_RETRY_BACKOFF)
+            : ImageLoadOptions.DEFAULT_RETRY_BACKOFF_MS;
+        double hedgePercentile = image.hasKey(KEY_IMAGE_HEDGE_PERCENTILE) ? image.getDouble(KEY_IMAGE_HEDGE_PERCENTILE) : 0;
+        String fallback = image.hasKey(KEY_IMAGE_FALLBACK) ? image.getString(KEY_IMAGE_FALLBACK) : null;
+        return ImageLoadOptions.fromDp(loadTimeoutMs, width, height, density, bitmapConfig, diskCacheTtlMs,
+            maxRetries, retryBackoffMs, hedgePercentile, fallback, imageHeaders(image));
+    }
+
+    /**
+     * Reads the {@code headers} of an image map, headers that aren't strings are skipped.
+     */
+    @Nullable
+    private static Map<String, String> imageHeaders(ReadableMap image) {
+        if (!image.hasKey(KEY_IMAGE_HEADERS) || image.getType(KEY_IMAGE_HEADERS) != ReadableType.Map) {
+            return null;
+        }
+        ReadableMap headerMap = image.getMap(KEY_IMAGE_HEADERS);
+        Map<String, String> headers = new LinkedHashMap<>();
+        ReadableMapKeySetIterator names = headerMap.keySetIterator();
+        while (names.hasNextKey()) {
+            String name = names.nextKey();
+            if (headerMap.getType(name) == ReadableType.String) {
+                headers.put(name, headerMap.getString(name));
+            } else {
+                VeriffLog.w(TAG, "Ignoring image header {}, it is not a string", name);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Returns a provider for the image under {@code key} if it is an image map that is loaded
+     * asynchronously, see {@link #imageProvider(Context, ReadableMap, String)}, {@code null} otherwise.
+     */
+    @Nullable
+    private ReactNativeImageProvider asyncImageProvider(Context context, String key, ReadableMap brandConfig) {
+        if (!brandConfig.hasKey(key) || !ReadableType.Map.equals(brandConfig.getType(key))) {
+            return null;
+        }
+        ReadableMap image = brandConfig.getMap(key);
+        String url = imageUrl(image);
+        return url != null ? imageProvider(context, image, url) : null;
+    }
+
+    /**
+     * Returns a provider for an image map's url if the image is loaded asynchronously: remote and
+     * file urls, and XML drawables that are rendered at the size the map asks for. Returns
+     * {@code null} for other drawables, which the Veriff SDK loads itself.
+     */
+    @Nullable
+    private ReactNativeImageProvider imageProvider(Context context, ReadableMap image, String url) {
+        if (isAsyncLogoUrl(url)) {
+            return ReactNativeImageProvider.create(context, url, imageLoadOptions(context, image));
+        }
+        boolean hasSize = image.hasKey(KEY_IMAGE_WIDTH) || image.hasKey(KEY_IMAGE_HEIGHT);
+        int drawableId = DrawableResolver.getDrawableId(context, url);
+        if (hasSize && VectorImageRenderer.isXmlDrawable(context, drawableId)) {
+            return ReactNativeImageProvider.create(context, VectorImageRenderer.resourceUrl(drawableId), imageLoadOptions(context, image));
         }
+        return null;
     }
 
     private boolean isAsyncLogoUrl(String url) {
         return url.startsWith("https://") || url.startsWith("http://") || url.startsWith("file://");
     }
 
-    private int parseColor(String hexcolor) {
-        if (hexcolor == null) {
-            return 0;
-        }
-        if (hexcolor.startsWith("#")) {
-            return parseColor(hexcolor.substring(1));
-        }
-        long color = Long.parseLong(hexcolor, 16);
-        int a = 255;
-        if (hexcolor.length() > 6) {
-            a = ((int)color) & 0xff;
-            color = color >>> 8;
-        }
-        int r = ((int)(color >>> 16)) & 0xff;
-        int g = ((int)(color >>> 8)) & 0xff;
-        int b = ((int)(color >>> 0)) & 0xff;
-        return Color.argb(a, r, g, b);
-    }
-
-    private static int getDrawableId(Context context, String name) {
-        return context.getResources().getIdentifier(name, "drawable", context.getPackageName());
-    }
-
-    private static String codeToError(VeriffResult.Error error) {
-        switch (error) {
-            case UNABLE_TO_ACCESS_CAMERA:
-                return ERROR_UNABLE_TO_ACCESS_CAMERA;
-            case UNABLE_TO_RECORD_AUDIO:
-                return ERROR_UNABLE_TO_RECORD_AUDIO;
-            case UNABLE_TO_START_CAMERA:
-                return ERROR_UNABLE_TO_START_CAMERA;
-            case UNSUPPORTED_SDK_VERSION:
-                  return ERROR_UNSUPPORTED_SDK_VERSION;
-            case SESSION_ERROR:
-                  return ERROR_SESSION;
-            case NETWORK_ERROR:
-                  return ERROR_NETWORK;
-            case SETUP_ERROR:
-                  return ERROR_SETUP;
-            case NFC_DISABLED:
-              return ERROR_NFC_DISABLED;
-            case DEVICE_HAS_NO_NFC:
-              return ERROR_DEVICE_HAS_NO_NFC;
-            case UNKNOWN_ERROR:
-            default:
-                return ERROR_UNKNOWN;
-        }
-    }
-
-    private static String statusToString(Status status) {
-      switch (status){
-        case DONE: return STATUS_DONE;
-        case CANCELED: return STATUS_CANCELED;
-        default: return STATUS_ERROR;
-      }
+    private static final class BackgroundExecutor {
+        private static final ExecutorService INSTANCE =
+            Executors.newFixedThreadPool(2, new NamedThreadFactory("veriff-background"));
     }
 
 }
@@ -1,22 +1,39 @@
 package com.veriff.sdk.reactnative;
 
-import com.facebook.react.ReactPackage;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.uimanager.ViewManager;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.Map;
 
-public class VeriffSdkPackage implements ReactPackage {
+/**
+ * Creates {@link VeriffSdkModule} lazily, the first time JS asks for it, instead of at app start.
+ */
+public class VeriffSdkPackage extends TurboReactPackage {
+    @Nullable
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        return Arrays.<NativeModule>asList(new VeriffSdkModule(reactContext));
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (VeriffSdkModule.JS_NAME.equals(name)) {
+            return new VeriffSdkModule(reactContext);
+        }
+        return null;
     }
 
     @Override
-    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-        return Collections.emptyList();
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> Collections.singletonMap(VeriffSdkModule.JS_NAME, new ReactModuleInfo(
+            VeriffSdkModule.JS_NAME,
+            VeriffSdkModule.JS_NAME,
+            false, // canOverrideExistingModule
+            false, // needsEagerInit
+            true, // hasConstants
+            false, // isCxxModule
+            BuildConfig.IS_NEW_ARCHITECTURE_ENABLED // isTurboModule
+        ));
     }
 }
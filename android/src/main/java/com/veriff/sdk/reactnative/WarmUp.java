@@ -0,0 +1,129 @@
+package com.veriff.sdk.reactnative;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.facebook.drawee.backends.pipeline.Fresco;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Does the work the first {@code launchVeriff} would otherwise pay for: loading the SDK classes,
+ * touching the image pipeline and warming the way to the Veriff backend.
+ * <p>
+ * The Veriff SDK talks to its backend through its own OkHttp client with its own
+ * {@link SSLContext}, so neither a connection nor a TLS session opened here would be reused by it.
+ * What is shared process-wide is warmed instead: the DNS cache, by resolving the backend's host,
+ * and the TLS provider and system trust store, by doing the same lookups OkHttp does when it
+ * builds a client.
+ */
+final class WarmUp {
+    private static final String TAG = "VeriffWarmUp";
+
+    /**
+     * Classes the launch path needs, loaded and initialized up front.
+     */
+    private static final String[] PRELOADED_CLASSES = {
+        "com.veriff.VeriffSdk",
+        "com.veriff.VeriffConfiguration",
+        "com.veriff.VeriffConfiguration$Builder",
+        "com.veriff.VeriffBranding",
+        "com.veriff.VeriffBranding$Builder",
+        "com.veriff.VeriffResult",
+        "okhttp3.HttpUrl",
+    };
+
+    static final class Timings {
+        long classPreloadNanos;
+        long imagePipelineNanos;
+        long dnsNanos;
+        long tlsNanos;
+        boolean resolved;
+        @Nullable
+        String error;
+    }
+
+    @WorkerThread
+    Timings run(@NonNull Context context, @Nullable HttpUrl baseUrl) {
+        Timings timings = new Timings();
+
+        long start = System.nanoTime();
+        preloadClasses(context.getClassLoader());
+        timings.classPreloadNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        initImagePipeline();
+        timings.imagePipelineNanos = System.nanoTime() - start;
+
+        if (baseUrl != null) {
+            start = System.nanoTime();
+            try {
+                resolve(baseUrl);
+                timings.resolved = true;
+            } catch (IOException e) {
+                VeriffLog.w(TAG, "resolving {} failed", baseUrl.host(), e);
+                timings.error = e.getMessage();
+            }
+            timings.dnsNanos = System.nanoTime() - start;
+        }
+
+        start = System.nanoTime();
+        try {
+            initTls();
+        } catch (GeneralSecurityException e) {
+            VeriffLog.w(TAG, "initializing TLS failed", e);
+            if (timings.error == null) {
+                timings.error = e.getMessage();
+            }
+        }
+        timings.tlsNanos = System.nanoTime() - start;
+        return timings;
+    }
+
+    private static void preloadClasses(ClassLoader classLoader) {
+        for (String className : PRELOADED_CLASSES) {
+            try {
+                Class.forName(className, true, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                VeriffLog.w(TAG, "could not preload {}", className, e);
+            }
+        }
+    }
+
+    private static void initImagePipeline() {
+        // the host app owns Fresco's configuration, only warm it if the app has set it up
+        if (Fresco.hasBeenInitialized()) {
+            Fresco.getImagePipeline();
+        }
+    }
+
+    /**
+     * Resolves the host, the addresses end up in the process-wide DNS cache.
+     */
+    @WorkerThread
+    static InetAddress[] resolve(@NonNull HttpUrl baseUrl) throws IOException {
+        return InetAddress.getAllByName(baseUrl.host());
+    }
+
+    /**
+     * Loads the TLS provider and the system trust store, the way OkHttp does for a client without
+     * a custom socket factory.
+     */
+    @WorkerThread
+    static void initTls() throws GeneralSecurityException {
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init((KeyStore) null);
+        SSLContext.getInstance("TLS");
+    }
+}
@@ -0,0 +1,13 @@
+package com.veriff.sdk.reactnative;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * Base class of {@link VeriffSdkModule} with the new architecture, where the module is a
+ * TurboModule implementing the codegen'd spec from {@code src/NativeVeriffSdk.js}.
+ */
+abstract class VeriffSdkSpec extends NativeVeriffSdkSpec {
+    VeriffSdkSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+}
@@ -0,0 +1,23 @@
+package com.veriff.sdk.reactnative;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+
+import java.util.Map;
+
+/**
+ * Base class of {@link VeriffSdkModule} with the old architecture, mirroring the parts of the
+ * codegen'd spec the module relies on.
+ */
+abstract class VeriffSdkSpec extends ReactContextBaseJavaModule {
+    VeriffSdkSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    protected abstract Map<String, Object> getTypedExportedConstants();
+
+    @Override
+    public final Map<String, Object> getConstants() {
+        return getTypedExportedConstants();
+    }
+}
@@ -0,0 +1,180 @@
+package com.veriff.sdk.reactnative;
+
+import android.app.Activity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class ActivityResultReplayTest {
+    private static final int RESULT_OK = Activity.RESULT_OK;
+
+    private static final String EVENT_RESULT_RECEIVED = "VeriffSdkSession:" + SessionEvents.TYPE_RESULT_RECEIVED;
+
+    private ResultReplayHarness harness;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        harness = new ResultReplayHarness(RuntimeEnvironment.application, activity);
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void manySessionsWithShuffledResultsAllSettleOnce() {
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.shuffled(1000, 10, 42), 0);
+
+        assertEquals(report.toString(), 1000, report.launches);
+        assertEquals(report.toString(), 1000, report.foreignResults);
+        assertEquals(report.toString(), 1000, report.resolved);
+        assertEquals(report.toString(), 0, report.leaked);
+        assertEquals(report.toString(), 0, report.settledMoreThanOnce);
+        assertEquals(report.toString(), 0, report.pendingSessions);
+        assertEquals(report.toString(), 1, report.activityEventListeners);
+        assertEquals(report.toString(), 1000, report.emitted(EVENT_RESULT_RECEIVED));
+    }
+
+    @Test
+    public void replayingAtDifferentRatesGivesTheSameOutcome() {
+        ResultReplayHarness.Report fast = harness.replay(ResultTrace.shuffled(200, 50, 7), 0);
+        harness.close();
+        harness = new ResultReplayHarness(RuntimeEnvironment.application, Robolectric.buildActivity(Activity.class).setup().get());
+        ResultReplayHarness.Report paced = harness.replay(ResultTrace.shuffled(200, 50, 7), 2);
+
+        assertEquals(fast.resolved, paced.resolved);
+        assertEquals(paced.toString(), 200, paced.resolved);
+        assertEquals(paced.toString(), 0, paced.leaked);
+    }
+
+    @Test
+    public void recordedTraceSettlesEveryLaunchedSession() throws Exception {
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.load("interleaved"), 1);
+
+        assertEquals(report.toString(), 4, report.launches);
+        assertEquals(report.toString(), 5, report.results);
+        assertEquals(report.toString(), 2, report.foreignResults);
+        assertEquals(report.toString(), 4, report.resolved);
+        assertEquals(report.toString(), 0, report.leaked);
+        assertEquals(report.toString(), 0, report.settledMoreThanOnce);
+        assertEquals(report.toString(), 0, report.pendingSessions);
+        assertEquals(report.toString(), 3, report.emitted(EVENT_RESULT_RECEIVED));
+    }
+
+    @Test
+    public void resultsForOtherRequestCodesAreIgnored() {
+        List<ResultTrace.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(i)));
+            entries.add(ResultTrace.Entry.result(1, VeriffSdkModule.VERIFF_REQUEST_CODE - 1, RESULT_OK, ResultTrace.token(i)));
+        }
+
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.of(entries), 0);
+
+        assertEquals(report.toString(), 0, report.resolved);
+        assertEquals(report.toString(), 10, report.leaked);
+        assertEquals(report.toString(), 10, report.pendingSessions);
+    }
+
+    @Test
+    public void resultWithoutDataSettlesTheOnlyPendingSession() {
+        List<ResultTrace.Entry> entries = new ArrayList<>();
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(1)));
+        entries.add(ResultTrace.Entry.result(1, VeriffSdkModule.VERIFF_REQUEST_CODE, Activity.RESULT_CANCELED, null));
+
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.of(entries), 0);
+
+        assertEquals(report.toString(), 1, report.resolved);
+        assertEquals(report.toString(), 0, report.pendingSessions);
+    }
+
+    @Test
+    public void resultWithoutDataIsIgnoredWithSeveralPendingSessions() {
+        List<ResultTrace.Entry> entries = new ArrayList<>();
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(1)));
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(2)));
+        entries.add(ResultTrace.Entry.result(1, VeriffSdkModule.VERIFF_REQUEST_CODE, Activity.RESULT_CANCELED, null));
+
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.of(entries), 0);
+
+        assertEquals(report.toString(), 0, report.resolved);
+        assertEquals(report.toString(), 2, report.pendingSessions);
+    }
+
+    @Test
+    public void relaunchingASessionWhoseFlowEndedWithoutResultStartsOver() {
+        List<ResultTrace.Entry> entries = new ArrayList<>();
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(1)));
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(2)));
+        // can't tell which of the two it belongs to, so neither is settled
+        entries.add(ResultTrace.Entry.result(1, VeriffSdkModule.VERIFF_REQUEST_CODE, Activity.RESULT_CANCELED, null));
+        harness.replay(ResultTrace.of(entries), 0);
+        // both flows were shown, and no Veriff activity is left
+        harness.module().sessionRegistry.get(ResultTrace.token(1)).visibleAtNanos = 1;
+
+        entries.clear();
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(1)));
+        entries.add(ResultTrace.Entry.result(1, VeriffSdkModule.VERIFF_REQUEST_CODE, RESULT_OK, ResultTrace.token(1)));
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.of(entries), 0);
+
+        List<ResultReplayHarness.RecordingPromise> promises = harness.promises(ResultTrace.token(1));
+        assertEquals("E_VERIFF_SESSION_EXPIRED", promises.get(0).rejectCode);
+        assertEquals(1, promises.get(1).settleCount);
+        assertNull(promises.get(1).rejectCode);
+        assertEquals(report.toString(), 1, report.pendingSessions);
+    }
+
+    @Test
+    public void sessionsWithoutResultExpire() {
+        long ttlMs = SessionRegistry.DEFAULT_TTL_MS;
+        List<ResultTrace.Entry> entries = new ArrayList<>();
+        entries.add(ResultTrace.Entry.launch(0, ResultTrace.token(1)));
+        // the next launch sweeps the sessions that outlived their TTL
+        entries.add(ResultTrace.Entry.launch(ttlMs + TimeUnit.MINUTES.toMillis(1), ResultTrace.token(2)));
+        entries.add(ResultTrace.Entry.result(ttlMs + TimeUnit.MINUTES.toMillis(2),
+            VeriffSdkModule.VERIFF_REQUEST_CODE, RESULT_OK, ResultTrace.token(1)));
+
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.of(entries), 1);
+
+        assertEquals(report.toString(), 1, report.rejected);
+        assertEquals(report.toString(), 0, report.resolved);
+        assertEquals(report.toString(), 0, report.leaked);
+        assertEquals(report.toString(), 1, report.pendingSessions);
+        assertEquals("E_VERIFF_SESSION_EXPIRED", harness.promises(ResultTrace.token(1)).get(0).rejectCode);
+    }
+
+    @Test
+    public void destroyingTheModuleRemovesItsListener() {
+        harness.close();
+
+        assertEquals(0, harness.report().activityEventListeners);
+    }
+
+    @Test
+    public void dispatchLatencyIsReportedForEveryResult() {
+        ResultReplayHarness.Report report = harness.replay(ResultTrace.shuffled(100, 1, 3), 0);
+
+        assertEquals(report.toString(), 200, report.dispatchNanos.length);
+        assertEquals(report.toString(), 100, report.resolved);
+        // a result is one registry lookup and a promise to settle, even a slow CI machine is far below this
+        assertTrue(report.toString(), report.dispatchPercentileMicros(100) < TimeUnit.SECONDS.toMicros(1));
+    }
+}
@@ -0,0 +1,335 @@
+package com.veriff.sdk.reactnative;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ActivityEventListener;
+import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import mobi.lab.veriff.data.VeriffConstants;
+
+/**
+ * Drives a {@link VeriffSdkModule} on a fake React context with the launches and activity results
+ * of a {@link ResultTrace}, the way the host activity would deliver them, and reports what came
+ * of it. Meant to run under Robolectric: entries are posted to the main looper at their offset
+ * divided by the replay rate, on Robolectric's virtual clock, so replays are deterministic and a
+ * trace spanning hours replays in milliseconds.
+ */
+final class ResultReplayHarness implements AutoCloseable {
+    private final FakeReactContext reactContext;
+
+    private final VeriffSdkModule module;
+
+    private final Activity activity;
+
+    private final Map<String, List<RecordingPromise>> promises = new HashMap<>();
+
+    private final List<Long> dispatchNanos = new ArrayList<>();
+
+    private int launches;
+
+    private int results;
+
+    private int foreignResults;
+
+    private boolean closed;
+
+    ResultReplayHarness(Context context, Activity activity) {
+        this.reactContext = new FakeReactContext(context);
+        this.module = new VeriffSdkModule(reactContext);
+        this.activity = activity;
+        // a JS listener, so session events are emitted
+        module.addListener("VeriffSdkSession");
+    }
+
+    VeriffSdkModule module() {
+        return module;
+    }
+
+    /**
+     * Replays {@code trace}, {@code rate} times faster than recorded, and waits until every entry
+     * was dispatched. A rate of 0 or less dispatches everything right away, in trace order.
+     */
+    Report replay(ResultTrace trace, double rate) {
+        if (rate <= 0) {
+            for (ResultTrace.Entry entry : trace.entries) {
+                dispatch(entry);
+            }
+        } else {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            for (ResultTrace.Entry entry : trace.entries) {
+                mainHandler.postDelayed(() -> dispatch(entry), (long) (entry.offsetMs / rate));
+            }
+            ShadowLooper.idleMainLooper((long) (trace.durationMs() / rate) + 1, TimeUnit.MILLISECONDS);
+        }
+        return report();
+    }
+
+    private void dispatch(ResultTrace.Entry entry) {
+        if (entry.launch) {
+            launch(entry.session);
+            return;
+        }
+        Intent data = null;
+        if (entry.session != null) {
+            data = new Intent().putExtra(VeriffConstants.INTENT_EXTRA_SESSION_URL, entry.session);
+        }
+        if (entry.requestCode == VeriffSdkModule.VERIFF_REQUEST_CODE) {
+            results++;
+        } else {
+            foreignResults++;
+        }
+        long start = System.nanoTime();
+        reactContext.onActivityResult(activity, entry.requestCode, entry.resultCode, data);
+        dispatchNanos.add(System.nanoTime() - start);
+    }
+
+    private void launch(String sessionToken) {
+        launches++;
+        RecordingPromise promise = new RecordingPromise();
+        List<RecordingPromise> sessionPromises = promises.get(sessionToken);
+        if (sessionPromises == null) {
+            sessionPromises = new ArrayList<>();
+            promises.put(sessionToken, sessionPromises);
+        }
+        sessionPromises.add(promise);
+        module.trackSession(sessionToken, SessionUrls.startUrl(null, sessionToken), promise, false);
+    }
+
+    Report report() {
+        Report report = new Report();
+        report.launches = launches;
+        report.results = results;
+        report.foreignResults = foreignResults;
+        for (List<RecordingPromise> sessionPromises : promises.values()) {
+            for (RecordingPromise promise : sessionPromises) {
+                if (promise.settleCount == 0) {
+                    report.leaked++;
+                } else if (promise.rejectCode != null) {
+                    report.rejected++;
+                } else {
+                    report.resolved++;
+                }
+                if (promise.settleCount > 1) {
+                    report.settledMoreThanOnce++;
+                }
+            }
+        }
+        // getPendingSessionCount would expire sessions, a report mustn't change what it reports on
+        report.pendingSessions = module.sessionRegistry.size();
+        report.activityEventListeners = reactContext.activityEventListeners;
+        report.emittedEvents = new HashMap<>(reactContext.emittedEvents);
+        report.dispatchNanos = new long[dispatchNanos.size()];
+        for (int i = 0; i < report.dispatchNanos.length; i++) {
+            report.dispatchNanos[i] = dispatchNanos.get(i);
+        }
+        Arrays.sort(report.dispatchNanos);
+        return report;
+    }
+
+    /**
+     * Returns the promises launched for {@code sessionToken}, in launch order.
+     */
+    List<RecordingPromise> promises(String sessionToken) {
+        List<RecordingPromise> sessionPromises = promises.get(sessionToken);
+        return sessionPromises != null ? sessionPromises : new ArrayList<>();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            module.onCatalystInstanceDestroy();
+        }
+    }
+
+    static final class Report {
+        int launches;
+        int results;
+        int foreignResults;
+        int resolved;
+        int rejected;
+
+        /**
+         * Promises that were never settled.
+         */
+        int leaked;
+
+        int settledMoreThanOnce;
+        int pendingSessions;
+        int activityEventListeners;
+
+        /**
+         * Emitted events by name, session events by name and type.
+         */
+        Map<String, Integer> emittedEvents;
+
+        /**
+         * How long each activity result took to dispatch, sorted.
+         */
+        long[] dispatchNanos;
+
+        int emitted(String eventName) {
+            Integer count = emittedEvents.get(eventName);
+            return count != null ? count : 0;
+        }
+
+        double dispatchPercentileMicros(double percentile) {
+            if (dispatchNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * dispatchNanos.length) - 1;
+            return dispatchNanos[Math.max(0, Math.min(index, dispatchNanos.length - 1))] / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return "launches=" + launches + " results=" + results + " foreignResults=" + foreignResults
+                + " resolved=" + resolved + " rejected=" + rejected + " leaked=" + leaked
+                + " settledMoreThanOnce=" + settledMoreThanOnce + " pendingSessions=" + pendingSessions
+                + " activityEventListeners=" + activityEventListeners + " events=" + emittedEvents
+                + String.format(" dispatch p50=%.1fus p99=%.1fus max=%.1fus", dispatchPercentileMicros(50),
+                dispatchPercentileMicros(99), dispatchPercentileMicros(100));
+        }
+    }
+
+    /**
+     * Records how it was settled, and how often.
+     */
+    static final class RecordingPromise implements Promise {
+        int settleCount;
+
+        @Nullable
+        Object value;
+
+        @Nullable
+        String rejectCode;
+
+        private void settle(@Nullable Object value, @Nullable String rejectCode) {
+            settleCount++;
+            this.value = value;
+            this.rejectCode = rejectCode;
+        }
+
+        // no @Override on the rejects: the set of overloads depends on the React Native version
+
+        @Override
+        public void resolve(@Nullable Object value) {
+            settle(value, null);
+        }
+
+        public void reject(String code, String message) {
+            settle(message, code);
+        }
+
+        public void reject(String code, Throwable throwable) {
+            settle(throwable, code);
+        }
+
+        public void reject(String code, String message, Throwable throwable) {
+            settle(message, code);
+        }
+
+        public void reject(Throwable throwable) {
+            settle(throwable, "EUNSPECIFIED");
+        }
+
+        public void reject(Throwable throwable, WritableMap userInfo) {
+            settle(throwable, "EUNSPECIFIED");
+        }
+
+        public void reject(String code, WritableMap userInfo) {
+            settle(userInfo, code);
+        }
+
+        public void reject(String code, Throwable throwable, WritableMap userInfo) {
+            settle(throwable, code);
+        }
+
+        public void reject(String code, String message, WritableMap userInfo) {
+            settle(message, code);
+        }
+
+        public void reject(String code, String message, Throwable throwable, WritableMap userInfo) {
+            settle(message, code);
+        }
+
+        public void reject(String message) {
+            settle(message, "EUNSPECIFIED");
+        }
+    }
+
+    /**
+     * A React context without a catalyst instance: counts activity event listeners and records the
+     * events the module emits instead of handing them to JS.
+     */
+    private static final class FakeReactContext extends ReactApplicationContext {
+        int activityEventListeners;
+
+        final Map<String, Integer> emittedEvents = new HashMap<>();
+
+        FakeReactContext(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void addActivityEventListener(ActivityEventListener listener) {
+            activityEventListeners++;
+            super.addActivityEventListener(listener);
+        }
+
+        @Override
+        public void removeActivityEventListener(ActivityEventListener listener) {
+            activityEventListeners--;
+            super.removeActivityEventListener(listener);
+        }
+
+        @Override
+        public boolean hasActiveCatalystInstance() {
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+            if (!DeviceEventManagerModule.RCTDeviceEventEmitter.class.equals(jsInterface)) {
+                throw new UnsupportedOperationException("No JS module " + jsInterface.getName());
+            }
+            return (T) Proxy.newProxyInstance(jsInterface.getClassLoader(), new Class<?>[]{jsInterface},
+                (proxy, method, args) -> {
+                    if ("emit".equals(method.getName())) {
+                        String eventName = (String) args[0];
+                        count(eventName);
+                        if (args[1] instanceof WritableMap && ((WritableMap) args[1]).hasKey("type")) {
+                            count(eventName + ":" + ((WritableMap) args[1]).getString("type"));
+                        }
+                    }
+                    return null;
+                });
+        }
+
+        private void count(String key) {
+            Integer count = emittedEvents.get(key);
+            emittedEvents.put(key, count != null ? count + 1 : 1);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.veriff.sdk.reactnative;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A recorded or generated sequence of launches and activity results to replay against the module.
+ * <p>
+ * The text format has one entry per line, blank lines and lines starting with {@code #} are skipped:
+ * <pre>
+ * &lt;offsetMs&gt; launch &lt;sessionToken&gt;
+ * &lt;offsetMs&gt; result &lt;requestCode&gt; &lt;resultCode&gt; &lt;sessionToken | sessionUrl | -&gt;
+ * </pre>
+ * A result without a session ({@code -}) arrives without data.
+ */
+final class ResultTrace {
+    final List<Entry> entries;
+
+    private ResultTrace(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    static final class Entry {
+        final long offsetMs;
+        final boolean launch;
+        final int requestCode;
+        final int resultCode;
+
+        /**
+         * The launched session's token, or what the result carries in its session url extra,
+         * {@code null} for a result without data.
+         */
+        @Nullable
+        final String session;
+
+        private Entry(long offsetMs, boolean launch, int requestCode, int resultCode, @Nullable String session) {
+            this.offsetMs = offsetMs;
+            this.launch = launch;
+            this.requestCode = requestCode;
+            this.resultCode = resultCode;
+            this.session = session;
+        }
+
+        static Entry launch(long offsetMs, @NonNull String sessionToken) {
+            return new Entry(offsetMs, true, 0, 0, sessionToken);
+        }
+
+        static Entry result(long offsetMs, int requestCode, int resultCode, @Nullable String session) {
+            return new Entry(offsetMs, false, requestCode, resultCode, session);
+        }
+    }
+
+    static ResultTrace of(List<Entry> entries) {
+        return new ResultTrace(new ArrayList<>(entries));
+    }
+
+    /**
+     * Loads a trace from the test resources, {@code traces/<name>.trace}.
+     */
+    static ResultTrace load(String name) throws IOException {
+        String path = "traces/" + name + ".trace";
+        InputStream in = ResultTrace.class.getClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            throw new IOException("No trace " + path);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    static ResultTrace parse(Reader reader) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            try {
+                long offsetMs = Long.parseLong(fields[0]);
+                if ("launch".equals(fields[1]) && fields.length == 3) {
+                    entries.add(Entry.launch(offsetMs, fields[2]));
+                } else if ("result".equals(fields[1]) && fields.length == 5) {
+                    String session = "-".equals(fields[4]) ? null : fields[4];
+                    entries.add(Entry.result(offsetMs, Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), session));
+                } else {
+                    throw new IOException("Malformed trace entry on line " + lineNumber + ": " + line);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Malformed trace entry on line " + lineNumber + ": " + line, e);
+            }
+        }
+        return new ResultTrace(entries);
+    }
+
+    /**
+     * Generates a load test trace: {@code sessions} launches {@code spacingMs} apart, then one
+     * result per session in an order shuffled with {@code seed}, each preceded by a result for
+     * another request code. Every other result carries the whole session url instead of the token.
+     */
+    static ResultTrace shuffled(int sessions, long spacingMs, long seed) {
+        List<String> tokens = new ArrayList<>(sessions);
+        List<Entry> entries = new ArrayList<>(sessions * 3);
+        for (int i = 0; i < sessions; i++) {
+            String token = token(i);
+            tokens.add(token);
+            entries.add(Entry.launch(i * spacingMs, token));
+        }
+        Collections.shuffle(tokens, new Random(seed));
+        long offsetMs = sessions * spacingMs;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String session = i % 2 == 0 ? token : SessionUrls.startUrl(null, token);
+            entries.add(Entry.result(offsetMs, VeriffSdkModule.VERIFF_REQUEST_CODE + 1, -1, session));
+            entries.add(Entry.result(offsetMs, VeriffSdkModule.VERIFF_REQUEST_CODE, -1, session));
+            offsetMs += spacingMs;
+        }
+        return new ResultTrace(entries);
+    }
+
+    static String token(int index) {
+        return String.format("00000000-0000-4000-8000-%012d", index);
+    }
+
+    int launchCount() {
+        int launches = 0;
+        for (Entry entry : entries) {
+            if (entry.launch) {
+                launches++;
+            }
+        }
+        return launches;
+    }
+
+    long durationMs() {
+        long duration = 0;
+        for (Entry entry : entries) {
+            duration = Math.max(duration, entry.offsetMs);
+        }
+        return duration;
+    }
+}
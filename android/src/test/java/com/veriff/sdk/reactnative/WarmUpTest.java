@@ -0,0 +1,35 @@
+package com.veriff.sdk.reactnative;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
+
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The network warm-up stages, against hosts that don't need a network.
+ */
+public class WarmUpTest {
+    @Test
+    public void resolveFindsTheHostsAddresses() throws IOException {
+        InetAddress[] addresses = WarmUp.resolve(HttpUrl.parse("https://localhost/"));
+
+        assertTrue(addresses.length > 0);
+    }
+
+    @Test(expected = UnknownHostException.class)
+    public void resolveFailsForAnUnknownHost() throws IOException {
+        // .invalid never resolves, see RFC 2606
+        WarmUp.resolve(HttpUrl.parse("https://veriff.invalid/"));
+    }
+
+    @Test
+    public void initTlsLoadsTheDefaultProviderAndTrustStore() throws GeneralSecurityException {
+        WarmUp.initTls();
+    }
+}
@@ -1,5 +1,110 @@
-import { NativeModules } from 'react-native';
+import { NativeModules, Platform } from 'react-native';
 
-const { VeriffSdk } = NativeModules;
+const CONSTANT_NAMES = [
+  'errorInvalidArgs',
+  'errorActivityNotAttached',
+  'errorSessionExpired',
+  'errorBusy',
+  'statusCanceled',
+  'statusDone',
+  'statusError',
+  'eventTimeline',
+  'eventMemoryTrim',
+  'eventSession',
+  'sessionEventLaunched',
+  'sessionEventActivityVisible',
+  'sessionEventResultReceived',
+  'sessionEventErrorMapped',
+];
+
+// Methods that resolve a promise, all but launchVeriff are only implemented on Android.
+const ASYNC_METHOD_NAMES = [
+  'launchVeriff',
+  'registerConfiguration',
+  'prefetchBranding',
+  'warmUp',
+  'getImageCacheStats',
+  'validateSessions',
+  'getPendingSessionCount',
+  'getLatencyHistograms',
+  'getExecutorStats',
+  'dumpLogs',
+];
+
+const SYNC_METHOD_NAMES = ['setLogLevel', 'addListener', 'removeListeners'];
+
+let nativeModule = null;
+let constants = null;
+
+// The native module is only looked up (and, with the new architecture, created) the first time
+// it's used, so importing the SDK costs nothing at app start.
+function getNativeModule() {
+  if (nativeModule == null) {
+    nativeModule =
+      (global.__turboModuleProxy != null
+        ? require('./src/NativeVeriffSdk').default
+        : null) || NativeModules.VeriffSdk;
+  }
+  return nativeModule;
+}
+
+function getConstants() {
+  if (constants == null) {
+    const module = getNativeModule();
+    constants =
+      module != null && typeof module.getConstants === 'function'
+        ? module.getConstants()
+        : module || {};
+  }
+  return constants;
+}
+
+function nativeMethod(name) {
+  const module = getNativeModule();
+  return module != null && typeof module[name] === 'function'
+    ? module[name]
+    : null;
+}
+
+const VeriffSdk = {};
+
+CONSTANT_NAMES.forEach(name => {
+  Object.defineProperty(VeriffSdk, name, {
+    enumerable: true,
+    get: () => getConstants()[name],
+  });
+});
+
+ASYNC_METHOD_NAMES.forEach(name => {
+  VeriffSdk[name] = (...args) => {
+    const method = nativeMethod(name);
+    if (method == null) {
+      return Promise.reject(
+        new Error(`VeriffSdk.${name} is not available on ${Platform.OS}`),
+      );
+    }
+    return method.apply(getNativeModule(), args);
+  };
+});
+
+SYNC_METHOD_NAMES.forEach(name => {
+  VeriffSdk[name] = (...args) => {
+    const method = nativeMethod(name);
+    if (method != null) {
+      method.apply(getNativeModule(), args);
+    }
+  };
+});
+
+const validateSessions = VeriffSdk.validateSessions;
+
+// The native spec takes maps only, a bare session url or token is the same as a map with just a
+// sessionUrl.
+VeriffSdk.validateSessions = sessions =>
+  validateSessions(
+    sessions.map(session =>
+      typeof session === 'string' ? { sessionUrl: session } : session,
+    ),
+  );
 
 export default VeriffSdk;
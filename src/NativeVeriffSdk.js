@@ -0,0 +1,45 @@
+/**
+ * Codegen spec of the VeriffSdk native module, used by the new architecture.
+ *
+ * @flow strict-local
+ */
+
+import type {TurboModule} from 'react-native/Libraries/TurboModule/RCTExport';
+import {TurboModuleRegistry} from 'react-native';
+
+export interface Spec extends TurboModule {
+  +getConstants: () => {|
+    errorInvalidArgs: string,
+    errorActivityNotAttached: string,
+    errorSessionExpired: string,
+    errorBusy: string,
+    statusCanceled: string,
+    statusDone: string,
+    statusError: string,
+    eventTimeline: string,
+    eventMemoryTrim: string,
+    eventSession: string,
+    sessionEventLaunched: string,
+    sessionEventActivityVisible: string,
+    sessionEventResultReceived: string,
+    sessionEventErrorMapped: string,
+  |};
+
+  +launchVeriff: (configuration: Object) => Promise<Object>;
+  +registerConfiguration: (name: string, configuration: Object) => Promise<void>;
+  +prefetchBranding: (branding: Object) => Promise<Object>;
+  +warmUp: (options: ?Object) => Promise<Object>;
+  +getImageCacheStats: () => Promise<Object>;
+  +validateSessions: (sessions: Array<Object>) => Promise<Array<Object>>;
+  +getPendingSessionCount: () => Promise<number>;
+  +getLatencyHistograms: () => Promise<Object>;
+  +getExecutorStats: () => Promise<Object>;
+  +dumpLogs: () => Promise<Array<Object>>;
+  +setLogLevel: (levels: Object) => void;
+
+  // NativeEventEmitter
+  +addListener: (eventName: string) => void;
+  +removeListeners: (count: number) => void;
+}
+
+export default (TurboModuleRegistry.get<Spec>('VeriffSdk'): ?Spec);